@@ -0,0 +1,25 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the standard JMH command line options and always attaches the {@link GCProfiler}, so every
+ * result reports the allocation rate next to the throughput.
+ */
+public class BenchmarkRunner {
+
+	private BenchmarkRunner() {}
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()//
+				.parent(new CommandLineOptions(args))//
+				.addProfiler(GCProfiler.class)//
+				.build();
+		new Runner(options).run();
+	}
+
+}
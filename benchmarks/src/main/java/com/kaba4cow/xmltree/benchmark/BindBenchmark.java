@@ -0,0 +1,131 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kaba4cow.xmltree.XMLBinder;
+import com.kaba4cow.xmltree.XMLConverter;
+import com.kaba4cow.xmltree.XMLNode;
+
+/**
+ * Measures binding objects straight from the parser and to the serializer against binding through a tree.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BindBenchmark {
+
+	private static final XMLBinder<Book> BOOK = XMLBinder.builder("book", Book::new)
+			.attribute("id", XMLConverter.INT, Book::getId, Book::setId)
+			.element("title", Book::getTitle, Book::setTitle)
+			.element("price", XMLConverter.DOUBLE, Book::getPrice, Book::setPrice)
+			.build();
+
+	private static final XMLBinder<Library> LIBRARY = XMLBinder.builder("library", Library::new)
+			.nodes(BOOK, Library::getBooks, Library::addBook)
+			.build();
+
+	@Param({ "10", "10000" })
+	public int books;
+
+	private Library library;
+	private String source;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(Documents.SEED);
+		library = new Library();
+		for (int i = 0; i < books; i++) {
+			Book book = new Book();
+			book.setId(i);
+			book.setTitle(Documents.sentence(random, 3));
+			book.setPrice(random.nextInt(10_000) / 100.0);
+			library.addBook(book);
+		}
+		source = LIBRARY.toXMLString(library);
+	}
+
+	@Benchmark
+	public Library parseStream() {
+		return LIBRARY.parse(source);
+	}
+
+	@Benchmark
+	public Library parseTree() {
+		return LIBRARY.fromNode(new XMLNode(source));
+	}
+
+	@Benchmark
+	public String writeStream() {
+		return LIBRARY.toXMLString(library);
+	}
+
+	@Benchmark
+	public String writeTree() {
+		return LIBRARY.toNode(library).toXMLString();
+	}
+
+	public static class Library {
+
+		private final List<Book> books = new ArrayList<>();
+
+		public List<Book> getBooks() {
+			return books;
+		}
+
+		public void addBook(Book book) {
+			books.add(book);
+		}
+
+	}
+
+	public static class Book {
+
+		private Integer id;
+		private String title;
+		private Double price;
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public void setTitle(String title) {
+			this.title = title;
+		}
+
+		public Double getPrice() {
+			return price;
+		}
+
+		public void setPrice(Double price) {
+			this.price = price;
+		}
+
+	}
+
+}
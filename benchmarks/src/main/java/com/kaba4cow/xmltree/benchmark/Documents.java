@@ -0,0 +1,150 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.util.Random;
+
+import com.kaba4cow.xmltree.XMLNode;
+
+/**
+ * Generates the benchmark documents. Every document is derived from a fixed seed, so all runs measure identical input.
+ */
+final class Documents {
+
+	static final long SEED = 0x5EEDL;
+
+	private Documents() {}
+
+	/**
+	 * Creates a document of the named shape.
+	 *
+	 * @param shape one of {@code small}, {@code wide}, {@code deep} or {@code attributes}
+	 *
+	 * @return the root node of the document
+	 */
+	static XMLNode create(String shape) {
+		switch (shape) {
+			case "small":
+				return small();
+			case "wide":
+				return wide(10_000);
+			case "deep":
+				return deep(1_000);
+			case "attributes":
+				return attributes(1_000, 32);
+			default:
+				throw new IllegalArgumentException(String.format("Unknown document shape \"%s\"", shape));
+		}
+	}
+
+	/**
+	 * Creates a message-sized document with a handful of nested elements.
+	 *
+	 * @return the root node
+	 */
+	static XMLNode small() {
+		Random random = new Random(SEED);
+		XMLNode root = new XMLNode().setTag("message");
+		root.addAttribute("id").setValue(Long.toHexString(random.nextLong()));
+		XMLNode header = root.addNode("header");
+		header.addNode("from").setText(word(random));
+		header.addNode("to").setText(word(random));
+		XMLNode body = root.addNode("body");
+		for (int i = 0; i < 4; i++)
+			body.addNode("entry").setText(sentence(random, 6)).addAttribute("index").setValue(String.valueOf(i));
+		return root;
+	}
+
+	/**
+	 * Creates a document whose root has many children.
+	 *
+	 * @param count the number of children
+	 *
+	 * @return the root node
+	 */
+	static XMLNode wide(int count) {
+		Random random = new Random(SEED);
+		XMLNode root = new XMLNode().setTag("items");
+		for (int i = 0; i < count; i++) {
+			XMLNode item = root.addNode("item" + i % 16).setText(sentence(random, 4));
+			item.addAttribute("id").setValue(String.valueOf(i));
+		}
+		return root;
+	}
+
+	/**
+	 * Creates a document that is a single chain of nested elements.
+	 *
+	 * @param depth the nesting depth
+	 *
+	 * @return the root node
+	 */
+	static XMLNode deep(int depth) {
+		Random random = new Random(SEED);
+		XMLNode root = new XMLNode().setTag("level");
+		XMLNode node = root;
+		for (int i = 1; i < depth; i++)
+			node = node.addNode("level");
+		node.setText(sentence(random, 4));
+		return root;
+	}
+
+	/**
+	 * Creates a document whose elements carry many attributes.
+	 *
+	 * @param count      the number of elements
+	 * @param attributes the number of attributes per element
+	 *
+	 * @return the root node
+	 */
+	static XMLNode attributes(int count, int attributes) {
+		Random random = new Random(SEED);
+		XMLNode root = new XMLNode().setTag("records");
+		for (int i = 0; i < count; i++) {
+			XMLNode record = root.addNode("record");
+			for (int j = 0; j < attributes; j++)
+				record.addAttribute("field" + j).setValue(word(random));
+		}
+		return root;
+	}
+
+	/**
+	 * Creates a balanced document where every element above the given depth has the same number of children.
+	 *
+	 * @param depth  the number of levels below the root
+	 * @param fanout the number of children per element
+	 *
+	 * @return the root node
+	 */
+	static XMLNode balanced(int depth, int fanout) {
+		Random random = new Random(SEED);
+		XMLNode root = new XMLNode().setTag("tree");
+		fill(root, depth, fanout, random);
+		return root;
+	}
+
+	private static void fill(XMLNode node, int depth, int fanout, Random random) {
+		if (depth == 0) {
+			node.setText(sentence(random, 3));
+			return;
+		}
+		for (int i = 0; i < fanout; i++) {
+			XMLNode child = node.addNode("branch");
+			child.addAttribute("index").setValue(String.valueOf(i));
+			fill(child, depth - 1, fanout, random);
+		}
+	}
+
+	static String word(Random random) {
+		char[] chars = new char[3 + random.nextInt(8)];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) ('a' + random.nextInt(26));
+		return new String(chars);
+	}
+
+	static String sentence(Random random, int words) {
+		StringBuilder builder = new StringBuilder(word(random));
+		for (int i = 1; i < words; i++)
+			builder.append(' ').append(word(random));
+		return builder.toString();
+	}
+
+}
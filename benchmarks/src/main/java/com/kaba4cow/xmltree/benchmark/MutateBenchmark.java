@@ -0,0 +1,73 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kaba4cow.xmltree.XMLNode;
+
+/**
+ * Measures adding many attributes to a fresh node and sorting large child lists.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MutateBenchmark {
+
+	private static final Comparator<XMLNode> BY_FIRST = Comparator.comparing(node -> node.getAttribute("first").getValue());
+	private static final Comparator<XMLNode> BY_SECOND = Comparator.comparing(node -> node.getAttribute("second").getValue());
+
+	@Param({ "16", "256", "4096" })
+	public int count;
+
+	private String[] names;
+	private XMLNode parent;
+	private boolean first;
+
+	@Setup
+	public void setup() {
+		names = new String[count];
+		for (int i = 0; i < count; i++)
+			names[i] = "attribute" + i;
+		Random random = new Random(0x5EEDL);
+		parent = new XMLNode().setTag("root");
+		for (int i = 0; i < count; i++) {
+			XMLNode node = parent.addNode(Documents.word(random));
+			node.addAttribute("first").setValue(Documents.word(random));
+			node.addAttribute("second").setValue(Documents.word(random));
+		}
+	}
+
+	@Benchmark
+	public XMLNode addAttributes() {
+		XMLNode node = new XMLNode().setTag("node");
+		for (String name : names)
+			node.addAttribute(name).setValue(name);
+		return node;
+	}
+
+	/**
+	 * Sorts by alternating independent random keys, so every invocation sorts an effectively shuffled list.
+	 */
+	@Benchmark
+	public XMLNode sortNodes() {
+		first = !first;
+		return parent.sortNodes(first ? BY_FIRST : BY_SECOND);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kaba4cow.xmltree.XMLNode;
+import com.kaba4cow.xmltree.XMLPushParser;
+
+/**
+ * Measures building trees from XML text, from byte chunks and from the binary format.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+	@Param({ "small", "wide", "deep", "attributes" })
+	public String shape;
+
+	private String source;
+	private byte[] bytes;
+	private byte[] binary;
+	private XMLPushParser pushParser;
+
+	@Setup
+	public void setup() throws IOException {
+		XMLNode document = Documents.create(shape);
+		source = document.toXMLString();
+		bytes = source.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		document.writeBinary(stream);
+		binary = stream.toByteArray();
+		pushParser = new XMLPushParser();
+	}
+
+	@Benchmark
+	public XMLNode parseString() {
+		return new XMLNode(source);
+	}
+
+	@Benchmark
+	public XMLNode parseChunks() {
+		for (int offset = 0; offset < bytes.length; offset += 4096)
+			pushParser.feed(bytes, offset, Math.min(4096, bytes.length - offset));
+		return pushParser.finish();
+	}
+
+	@Benchmark
+	public XMLNode readBinary() throws IOException {
+		return XMLNode.readBinary(ByteBuffer.wrap(binary));
+	}
+
+}
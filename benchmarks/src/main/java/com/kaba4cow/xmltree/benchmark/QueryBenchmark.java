@@ -0,0 +1,74 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kaba4cow.xmltree.XMLAttribute;
+import com.kaba4cow.xmltree.XMLNode;
+
+/**
+ * Measures child and attribute lookups by name on nodes with large fan-outs. Lookups target the first and the last
+ * entry to show the best and the worst case of the linear scan.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+
+	@Param({ "16", "256", "4096" })
+	public int fanout;
+
+	private XMLNode node;
+	private String firstTag;
+	private String lastTag;
+	private String firstName;
+	private String lastName;
+
+	@Setup
+	public void setup() {
+		node = new XMLNode().setTag("root");
+		for (int i = 0; i < fanout; i++) {
+			node.addNode("node" + i);
+			node.addAttribute("attribute" + i).setValue(String.valueOf(i));
+		}
+		firstTag = "node0";
+		lastTag = "node" + (fanout - 1);
+		firstName = "attribute0";
+		lastName = "attribute" + (fanout - 1);
+	}
+
+	@Benchmark
+	public XMLNode getFirstNode() {
+		return node.getNode(firstTag);
+	}
+
+	@Benchmark
+	public XMLNode getLastNode() {
+		return node.getNode(lastTag);
+	}
+
+	@Benchmark
+	public XMLAttribute getFirstAttribute() {
+		return node.getAttribute(firstName);
+	}
+
+	@Benchmark
+	public XMLAttribute getLastAttribute() {
+		return node.getAttribute(lastName);
+	}
+
+}
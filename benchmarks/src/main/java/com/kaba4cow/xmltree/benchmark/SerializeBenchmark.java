@@ -0,0 +1,89 @@
+package com.kaba4cow.xmltree.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kaba4cow.xmltree.XMLNode;
+
+/**
+ * Measures serialization of trees with roughly the same number of elements spread over different depths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializeBenchmark {
+
+	@Param({ "2:64", "4:8", "12:2" })
+	public String shape;
+
+	private XMLNode document;
+	private WritableByteChannel channel;
+	private OutputStream stream;
+
+	@Setup
+	public void setup() {
+		String[] parts = shape.split(":");
+		document = Documents.balanced(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+		channel = new WritableByteChannel() {
+
+			@Override
+			public int write(ByteBuffer buffer) {
+				int count = buffer.remaining();
+				buffer.position(buffer.limit());
+				return count;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {}
+
+		};
+		stream = new OutputStream() {
+
+			@Override
+			public void write(int b) {}
+
+			@Override
+			public void write(byte[] bytes, int offset, int length) {}
+
+		};
+	}
+
+	@Benchmark
+	public String toXMLString() {
+		return document.toXMLString();
+	}
+
+	@Benchmark
+	public void writeChannel() throws IOException {
+		document.write(channel);
+	}
+
+	@Benchmark
+	public void writeBinary() throws IOException {
+		document.writeBinary(stream);
+	}
+
+}
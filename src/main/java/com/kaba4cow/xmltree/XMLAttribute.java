@@ -15,11 +15,15 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 
 	private String name;
 	private String value;
+	private Object parsed;
+	private XMLQName qname;
 
-	XMLAttribute(XMLNode parent) {
+	XMLAttribute(XMLNode parent, String name, String value) {
 		super(parent);
-		this.name = null;
-		this.value = null;
+		this.name = name;
+		this.value = value;
+		this.parsed = null;
+		this.qname = null;
 	}
 
 	/**
@@ -52,7 +56,50 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	public XMLAttribute setName(String name) {
 		if (getParent().containsAttributeName(name))
 			throw new IllegalArgumentException(String.format("Attribute with name \"%s\" already exists", name));
+		String previous = this.name;
 		this.name = name;
+		this.qname = null;
+		getParent().modified(XMLJournal.Type.RENAME_ATTRIBUTE, name, previous);
+		return this;
+	}
+
+	/**
+	 * Retrieves the namespace-qualified name of the attribute. Unprefixed attributes are in no namespace, namespace
+	 * declarations are in the {@link XMLQName#XMLNS_NAMESPACE} namespace, and names with an unbound prefix are kept
+	 * whole as local names in no namespace.
+	 *
+	 * @return the interned {@link XMLQName}, or {@code null} if the attribute has no name
+	 * 
+	 * @see XMLNode#getQName()
+	 */
+	public XMLQName getQName() {
+		if (qname == null)
+			qname = XMLQName.resolve(name, true, getParent());
+		return qname;
+	}
+
+	/**
+	 * Retrieves the namespace URI of the attribute.
+	 *
+	 * @return the namespace URI, or {@code null} if the attribute is in no namespace or has no name
+	 */
+	public String getNamespace() {
+		XMLQName name = getQName();
+		return name == null ? null : name.getNamespace();
+	}
+
+	/**
+	 * Retrieves the local name of the attribute, the part of the name after the namespace prefix.
+	 *
+	 * @return the local name, or {@code null} if the attribute has no name
+	 */
+	public String getLocalName() {
+		XMLQName name = getQName();
+		return name == null ? null : name.getLocalName();
+	}
+
+	XMLAttribute setQName(XMLQName qname) {
+		this.qname = qname;
 		return this;
 	}
 
@@ -66,11 +113,14 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	}
 
 	/**
-	 * Retrieves the value of the attribute.
+	 * Retrieves the value of the attribute. A value set through a typed setter is converted to a string when first
+	 * requested.
 	 *
 	 * @return the attribute value
 	 */
 	public String getValue() {
+		if (value == null && parsed != null)
+			value = XMLValue.format(parsed);
 		return value;
 	}
 
@@ -80,7 +130,7 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	 * @return an {@link Optional} containing the value
 	 */
 	public Optional<String> optValue() {
-		return Optional.ofNullable(value);
+		return Optional.ofNullable(getValue());
 	}
 
 	/**
@@ -92,6 +142,177 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	 */
 	public XMLAttribute setValue(String value) {
 		this.value = value;
+		this.parsed = null;
+		getParent().modified(XMLJournal.Type.SET_ATTRIBUTE, name, value);
+		return this;
+	}
+
+	/**
+	 * Parses the value as a decimal {@code int}, ignoring surrounding whitespace. The parsed value is cached until the
+	 * value changes.
+	 *
+	 * @return the value as an {@code int}
+	 * 
+	 * @throws NumberFormatException if the value is {@code null} or not a decimal {@code int}
+	 */
+	public int getInt() {
+		if (!(parsed instanceof Integer))
+			parsed = XMLValue.parseInt(getValue());
+		return (Integer) parsed;
+	}
+
+	/**
+	 * Parses the value as a decimal {@code long}, ignoring surrounding whitespace. The parsed value is cached until the
+	 * value changes.
+	 *
+	 * @return the value as a {@code long}
+	 * 
+	 * @throws NumberFormatException if the value is {@code null} or not a decimal {@code long}
+	 */
+	public long getLong() {
+		if (!(parsed instanceof Long))
+			parsed = XMLValue.parseLong(getValue());
+		return (Long) parsed;
+	}
+
+	/**
+	 * Parses the value as a {@code double} in any format accepted by {@link Double#parseDouble(String)}. The parsed
+	 * value is cached until the value changes.
+	 *
+	 * @return the value as a {@code double}
+	 * 
+	 * @throws NumberFormatException if the value is {@code null} or not a {@code double}
+	 */
+	public double getDouble() {
+		if (!(parsed instanceof Double))
+			parsed = XMLValue.parseDouble(getValue());
+		return (Double) parsed;
+	}
+
+	/**
+	 * Parses the value as a boolean, accepting {@code true}, {@code false}, {@code 1} and {@code 0} surrounded by
+	 * whitespace. The parsed value is cached until the value changes.
+	 *
+	 * @return the value as a {@code boolean}
+	 * 
+	 * @throws IllegalArgumentException if the value is {@code null} or not a boolean
+	 */
+	public boolean getBoolean() {
+		if (!(parsed instanceof Boolean))
+			parsed = XMLValue.parseBoolean(getValue());
+		return (Boolean) parsed;
+	}
+
+	/**
+	 * Parses the value as the name of an enum constant, ignoring surrounding whitespace. The parsed constant is cached
+	 * until the value changes.
+	 *
+	 * @param <E>  the enum type
+	 * @param type the class of the enum type
+	 * 
+	 * @return the enum constant named by the value
+	 * 
+	 * @throws IllegalArgumentException if the value is {@code null} or not the name of a constant of the type
+	 */
+	public <E extends Enum<E>> E getEnum(Class<E> type) {
+		if (!type.isInstance(parsed))
+			parsed = XMLValue.parseEnum(type, getValue());
+		return type.cast(parsed);
+	}
+
+	/**
+	 * Sets the value of the attribute to an {@code int}. The value is only converted to a string when it is requested
+	 * or serialized, and {@link #getInt()} returns it without parsing.
+	 *
+	 * @param value the new value for the attribute
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLAttribute setInt(int value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the value of the attribute to a {@code long}. The value is only converted to a string when it is requested
+	 * or serialized, and {@link #getLong()} returns it without parsing.
+	 *
+	 * @param value the new value for the attribute
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLAttribute setLong(long value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the value of the attribute to a {@code double}. The value is only converted to a string when it is
+	 * requested or serialized, and {@link #getDouble()} returns it without parsing.
+	 *
+	 * @param value the new value for the attribute
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLAttribute setDouble(double value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the value of the attribute to a boolean. The value is only converted to a string when it is requested or
+	 * serialized, and {@link #getBoolean()} returns it without parsing.
+	 *
+	 * @param value the new value for the attribute
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLAttribute setBoolean(boolean value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the value of the attribute to the name of an enum constant. The name is only looked up when the value is
+	 * requested or serialized, and {@link #getEnum(Class)} returns the constant without parsing.
+	 *
+	 * @param value the new value for the attribute, or {@code null} to clear it
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLAttribute setEnum(Enum<?> value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Retrieves the typed value of the attribute if it was set through a typed setter and not yet converted to a
+	 * string.
+	 *
+	 * @return the typed value, or {@code null} if the value is a string
+	 */
+	Object typed() {
+		return value == null ? parsed : null;
+	}
+
+	/**
+	 * Retrieves the value as a string without converting a typed value.
+	 *
+	 * @return the value, or {@code null} if there is none or it was set through a typed setter and not yet converted
+	 */
+	String value() {
+		return value;
+	}
+
+	/**
+	 * Retrieves the typed value cached for the value or set through a typed setter.
+	 *
+	 * @return the typed value, or {@code null} if there is none
+	 */
+	Object parsed() {
+		return parsed;
+	}
+
+	private XMLAttribute setParsed(Object parsed) {
+		this.value = null;
+		this.parsed = parsed;
+		XMLNode parent = getParent();
+		parent.modified(XMLJournal.Type.SET_ATTRIBUTE, name, parent.getJournal() == null ? null : getValue());
 		return this;
 	}
 
@@ -101,7 +322,7 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	 * @return a new {@link StringView} for the value
 	 */
 	public StringView viewValue() {
-		return new StringView(value);
+		return new StringView(getValue());
 	}
 
 	@Override
@@ -116,6 +337,28 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 			return name.compareTo(other.name);
 	}
 
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, getValue());
+	}
+
+	/**
+	 * Checks whether another object is an {@link XMLAttribute} with the same name and value. Parents are not compared.
+	 *
+	 * @param object the object to compare with
+	 * 
+	 * @return {@code true} if the object is an equal attribute, {@code false} otherwise
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (this == object)
+			return true;
+		if (!(object instanceof XMLAttribute))
+			return false;
+		XMLAttribute other = (XMLAttribute) object;
+		return Objects.equals(name, other.name) && Objects.equals(getValue(), other.getValue());
+	}
+
 	/**
 	 * Converts the attribute to its XML string representation.
 	 *
@@ -123,12 +366,12 @@ public class XMLAttribute extends XMLObject implements Comparable<XMLAttribute>
 	 */
 	@Override
 	public String toXMLString() {
-		return String.format("%s=\"%s\"", escapeString(name), escapeString(value));
+		return String.format("%s=\"%s\"", escapeString(name), escapeString(getValue()));
 	}
 
 	@Override
 	public String toString() {
-		return String.format("XMLAttribute [name=%s, value=%s]", name, value);
+		return String.format("XMLAttribute [name=%s, value=%s]", name, getValue());
 	}
 
 }
@@ -0,0 +1,290 @@
+package com.kaba4cow.xmltree;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes and decodes {@link XMLNode} trees in a compact binary format.
+ * <p>
+ * The stream starts with the magic bytes {@code XTB} and a format version byte, followed by the nodes in depth-first
+ * order. Each node is written as its tag, its text, the number of attributes, the name and value of each attribute,
+ * and the number of child nodes. Tags and attribute names are symbols: the first occurrence is written inline and
+ * assigned the next index in a string table, later occurrences are written as that index. All counts, lengths and
+ * indices are unsigned LEB128 varints of at most 31 bits, and strings are UTF-8 encoded.
+ * <p>
+ * Corrupt input is rejected with an {@link IOException}: varints that do not fit in 31 bits, symbol indices beyond the
+ * string table, and lengths exceeding the remaining input. Buffers read from streams only grow as the bytes actually
+ * arrive, so a corrupt length cannot cause an allocation larger than the input.
+ */
+class XMLBinary {
+
+	private static final byte[] MAGIC = { 'X', 'T', 'B' };
+	private static final int VERSION = 1;
+	private static final int CHUNK_SIZE = 1 << 13;
+
+	private XMLBinary() {}
+
+	/**
+	 * Writes a node and its descendants.
+	 *
+	 * @param root   the node to write
+	 * @param stream the {@link OutputStream} to write to
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void write(XMLNode root, OutputStream stream) throws IOException {
+		Output output = new Output(stream);
+		output.bytes(MAGIC, MAGIC.length);
+		output.varint(VERSION);
+		Deque<XMLNode> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			XMLNode node = stack.pop();
+			output.symbol(node.getTag());
+			output.string(node.getText());
+			output.varint(node.getAttributeCount());
+			for (int i = 0; i < node.getAttributeCount(); i++) {
+				XMLAttribute attribute = node.getAttribute(i);
+				output.symbol(attribute.getName());
+				output.string(attribute.getValue());
+			}
+			output.varint(node.getNodeCount());
+			for (int i = node.getNodeCount() - 1; i >= 0; i--)
+				stack.push(node.getNode(i));
+		}
+		output.flush();
+	}
+
+	/**
+	 * Reads a node and its descendants from a stream. The stream is read in chunks, so bytes following the encoded tree
+	 * may be consumed as well.
+	 *
+	 * @param stream the {@link InputStream} to read from
+	 *
+	 * @return the decoded root node
+	 *
+	 * @throws IOException if an I/O error occurs or the stream is not a supported binary tree
+	 */
+	public static XMLNode read(InputStream stream) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		buffer.flip();
+		return read(new Input(buffer, stream));
+	}
+
+	/**
+	 * Reads a node and its descendants from a buffer, starting at its position. The position is advanced past the
+	 * encoded tree.
+	 *
+	 * @param buffer the {@link ByteBuffer} to read from
+	 *
+	 * @return the decoded root node
+	 *
+	 * @throws IOException if the buffer does not hold a supported binary tree
+	 */
+	public static XMLNode read(ByteBuffer buffer) throws IOException {
+		return read(new Input(buffer, null));
+	}
+
+	private static XMLNode read(Input input) throws IOException {
+		for (byte magic : MAGIC)
+			if (input.readByte() != magic)
+				throw new IOException("Not an XML tree binary stream");
+		int version = input.varint();
+		if (version != VERSION)
+			throw new IOException(String.format("Unsupported XML tree binary format version %d", version));
+		XMLNode root = new XMLNode();
+		Deque<XMLNode> parents = new ArrayDeque<>();
+		int[] remaining = new int[16];
+		remaining[0] = input.node(root);
+		parents.push(root);
+		while (!parents.isEmpty()) {
+			int depth = parents.size() - 1;
+			if (remaining[depth] == 0) {
+				parents.pop();
+				continue;
+			}
+			remaining[depth]--;
+			XMLNode node = parents.peek().addNode(null);
+			if (depth + 1 == remaining.length)
+				remaining = Arrays.copyOf(remaining, remaining.length << 1);
+			remaining[depth + 1] = input.node(node);
+			parents.push(node);
+		}
+		return root;
+	}
+
+	private static class Output {
+
+		private final OutputStream stream;
+		private final byte[] buffer;
+		private final Map<String, Integer> symbols;
+		private int position;
+
+		private Output(OutputStream stream) {
+			this.stream = stream;
+			this.buffer = new byte[CHUNK_SIZE];
+			this.symbols = new HashMap<>();
+			this.position = 0;
+		}
+
+		private void symbol(String symbol) throws IOException {
+			if (symbol == null) {
+				varint(0);
+				return;
+			}
+			Integer index = symbols.get(symbol);
+			if (index != null)
+				varint(index);
+			else {
+				index = symbols.size() + 1;
+				symbols.put(symbol, index);
+				varint(index);
+				string(symbol);
+			}
+		}
+
+		private void string(String string) throws IOException {
+			if (string == null)
+				varint(0);
+			else {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				varint(bytes.length + 1);
+				bytes(bytes, bytes.length);
+			}
+		}
+
+		private void varint(int value) throws IOException {
+			if (position + 5 > buffer.length)
+				flush();
+			while ((value & ~0x7F) != 0) {
+				buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			buffer[position++] = (byte) value;
+		}
+
+		private void bytes(byte[] bytes, int length) throws IOException {
+			if (position + length > buffer.length) {
+				flush();
+				if (length > buffer.length) {
+					stream.write(bytes, 0, length);
+					return;
+				}
+			}
+			System.arraycopy(bytes, 0, buffer, position, length);
+			position += length;
+		}
+
+		private void flush() throws IOException {
+			stream.write(buffer, 0, position);
+			position = 0;
+		}
+
+	}
+
+	private static class Input {
+
+		private final InputStream stream;
+		private final List<String> symbols;
+		private ByteBuffer buffer;
+		private byte[] scratch;
+
+		private Input(ByteBuffer buffer, InputStream stream) {
+			this.stream = stream;
+			this.symbols = new ArrayList<>();
+			this.buffer = buffer;
+			this.scratch = new byte[0];
+		}
+
+		private int node(XMLNode node) throws IOException {
+			node.setTag(symbol());
+			node.setText(string());
+			int attributes = varint();
+			for (int i = 0; i < attributes; i++)
+				node.appendAttribute(symbol(), string());
+			return varint();
+		}
+
+		private String symbol() throws IOException {
+			int index = varint();
+			if (index == 0)
+				return null;
+			else if (index <= symbols.size())
+				return symbols.get(index - 1);
+			else if (index == symbols.size() + 1) {
+				String symbol = string();
+				symbols.add(symbol);
+				return symbol;
+			} else
+				throw new IOException(String.format("Invalid symbol index %d", index));
+		}
+
+		private String string() throws IOException {
+			int length = varint() - 1;
+			if (length < 0)
+				return null;
+			ensure(length);
+			String string;
+			if (buffer.hasArray())
+				string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			else {
+				if (scratch.length < length)
+					scratch = new byte[Math.max(length, scratch.length << 1)];
+				buffer.duplicate().get(scratch, 0, length);
+				string = new String(scratch, 0, length, StandardCharsets.UTF_8);
+			}
+			buffer.position(buffer.position() + length);
+			return string;
+		}
+
+		private int varint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				byte b = readByte();
+				if (shift == 28 && (b & 0x78) != 0)
+					throw new IOException("Varint exceeds 31 bits");
+				value |= (b & 0x7F) << shift;
+				if (b >= 0)
+					return value;
+			}
+			throw new IOException("Malformed varint");
+		}
+
+		private byte readByte() throws IOException {
+			ensure(1);
+			return buffer.get();
+		}
+
+		private void ensure(int length) throws IOException {
+			if (buffer.remaining() >= length)
+				return;
+			if (stream == null)
+				throw new EOFException(
+						String.format("Expected %d bytes but only %d remain", length, buffer.remaining()));
+			buffer.compact();
+			while (buffer.position() < length) {
+				if (!buffer.hasRemaining())
+					buffer = ByteBuffer.allocate((int) Math.min(length, (long) buffer.capacity() << 1))
+							.put((ByteBuffer) buffer.flip());
+				int count = stream.read(buffer.array(), buffer.position(), buffer.remaining());
+				if (count == -1)
+					throw new EOFException();
+				buffer.position(buffer.position() + count);
+			}
+			buffer.flip();
+		}
+
+	}
+
+}
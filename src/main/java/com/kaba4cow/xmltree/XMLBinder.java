@@ -0,0 +1,757 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Binds objects of a class to XML elements in both directions.
+ * <p>
+ * A binder is configured once through a {@link Builder} with the tag of the element, a factory for new objects, and the
+ * getters and setters of its attributes, text content and child elements. Getters and setters are functional
+ * interfaces, usually method references linked by the JVM, so binding never uses reflection. Objects can be bound from
+ * and to {@link XMLNode} trees, or straight from the parser and to the serializer without building any nodes. Elements
+ * and attributes that are not bound are ignored. A binder is immutable and thread-safe as long as its getters and
+ * setters are.
+ *
+ * @param <T> the type of the bound objects
+ *
+ * @see XMLConverter
+ */
+public final class XMLBinder<T> {
+
+	private final String tag;
+	private final Supplier<T> factory;
+	private final Map<String, Property<T>> attributes;
+	private final Property<T> text;
+	private final Map<String, Element<T>> elements;
+	private final XMLSchema schema;
+
+	private XMLBinder(Builder<T> builder) {
+		this.tag = builder.tag;
+		this.factory = builder.factory;
+		this.attributes = new LinkedHashMap<>(builder.attributes);
+		this.text = builder.text;
+		this.elements = new LinkedHashMap<>(builder.elements);
+		this.schema = builder.schema;
+	}
+
+	/**
+	 * Creates a builder for a binder of elements with the specified tag.
+	 *
+	 * @param <T>     the type of the bound objects
+	 * @param tag     the tag of the bound elements
+	 * @param factory the factory creating an empty object for every bound element
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static <T> Builder<T> builder(String tag, Supplier<T> factory) {
+		return new Builder<>(Objects.requireNonNull(tag), Objects.requireNonNull(factory));
+	}
+
+	/**
+	 * Retrieves the tag of the bound elements.
+	 *
+	 * @return the tag
+	 */
+	public String getTag() {
+		return tag;
+	}
+
+	/**
+	 * Binds a node and its descendants to a new object.
+	 *
+	 * @param node the node to bind
+	 *
+	 * @return the bound object
+	 *
+	 * @throws IllegalArgumentException if the node does not have the bound tag or a value cannot be converted
+	 */
+	public T fromNode(XMLNode node) {
+		if (!tag.equals(node.getTag()))
+			throw mismatch(node.getTag());
+		T object = factory.get();
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			Property<T> property = attributes.get(attribute.getName());
+			if (property != null && attribute.getValue() != null)
+				property.read(object, attribute.getValue());
+		}
+		if (text != null && node.hasText())
+			text.read(object, node.getText());
+		for (int i = 0; i < node.getNodeCount(); i++) {
+			XMLNode child = node.getNode(i);
+			Element<T> element = elements.get(child.getTag());
+			if (element != null)
+				element.read(object, child);
+		}
+		return object;
+	}
+
+	/**
+	 * Creates a node holding the bound values of an object. Values that are {@code null} are omitted.
+	 *
+	 * @param object the object to convert
+	 *
+	 * @return a new root node
+	 */
+	public XMLNode toNode(T object) {
+		XMLNode node = new XMLNode();
+		fill(object, node);
+		return node;
+	}
+
+	/**
+	 * Parses an XML source string straight into a new object, without building nodes.
+	 *
+	 * @param source the XML source string
+	 *
+	 * @return the bound object
+	 *
+	 * @throws IllegalArgumentException if the root element does not have the bound tag, the source contains an
+	 *                                  unmatched closing tag or does not match the schema, or a value cannot be
+	 *                                  converted
+	 */
+	public T parse(String source) {
+		Reader<T> reader = new Reader<>(this);
+		XMLParser parser = XMLParser.local();
+		parser.begin(reader);
+		parser.validate(schema);
+		parser.parse(source);
+		return reader.result();
+	}
+
+	/**
+	 * Reads a UTF-8 encoded XML document from a channel straight into a new object, without building nodes.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 *
+	 * @return the bound object
+	 *
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the root element does not have the bound tag, the document contains an
+	 *                                  unmatched closing tag or does not match the schema, or a value cannot be
+	 *                                  converted
+	 */
+	public T read(ReadableByteChannel channel) throws IOException {
+		return read(channel, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads an XML document in the specified encoding from a channel straight into a new object, without building
+	 * nodes. Bytes are decoded and bound chunk by chunk, so the source text is never buffered as a whole.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 * @param charset the {@link Charset} of the document
+	 *
+	 * @return the bound object
+	 *
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the root element does not have the bound tag, the document contains an
+	 *                                  unmatched closing tag or does not match the schema, or a value cannot be
+	 *                                  converted
+	 */
+	public T read(ReadableByteChannel channel, Charset charset) throws IOException {
+		Reader<T> reader = new Reader<>(this);
+		XMLParser parser = XMLParser.local();
+		parser.begin(reader);
+		parser.validate(schema);
+		XMLDecoder.read(channel, charset, parser);
+		return reader.result();
+	}
+
+	/**
+	 * Converts an object to its XML string representation with default tab indentation, without building nodes.
+	 *
+	 * @param object the object to convert
+	 *
+	 * @return the XML string representation of the object
+	 */
+	public String toXMLString(T object) {
+		return toXMLString(object, '\t');
+	}
+
+	/**
+	 * Converts an object to its XML string representation with specified indentation, without building nodes. The
+	 * result is equal to the XML string representation of {@link #toNode(Object)}.
+	 *
+	 * @param object the object to convert
+	 * @param indent the character to use for indentation
+	 *
+	 * @return the XML string representation of the object
+	 */
+	public String toXMLString(T object, char indent) {
+		StringBuilder builder = new StringBuilder();
+		XMLWriter writer = new XMLWriter(indent);
+		writer.begin();
+		try {
+			write(object, writer, builder, 0);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		writer.report(builder.length(), -1L);
+		return builder.toString();
+	}
+
+	/**
+	 * Writes an object as UTF-8 encoded XML with default tab indentation to a channel, without building nodes.
+	 *
+	 * @param object  the object to write
+	 * @param channel the {@link WritableByteChannel} to write to, in blocking mode
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(T object, WritableByteChannel channel) throws IOException {
+		write(object, channel, '\t', StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes an object as XML with specified indentation and encoding to a channel, without building nodes. Characters
+	 * are encoded in fixed-size chunks, so the whole document is never held in memory.
+	 *
+	 * @param object  the object to write
+	 * @param channel the {@link WritableByteChannel} to write to, in blocking mode
+	 * @param indent  the character to use for indentation
+	 * @param charset the {@link Charset} to encode with
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(T object, WritableByteChannel channel, char indent, Charset charset) throws IOException {
+		XMLEncoder encoder = new XMLEncoder(channel, charset);
+		XMLWriter writer = new XMLWriter(indent);
+		writer.begin();
+		write(object, writer, encoder, 0);
+		encoder.finish();
+		writer.report(encoder.getCharacters(), encoder.getBytes());
+	}
+
+	private void fill(T object, XMLNode node) {
+		node.setTag(tag);
+		for (Property<T> property : attributes.values()) {
+			String value = property.write(object);
+			if (value != null)
+				node.appendAttribute(property.name, value);
+		}
+		if (text != null)
+			node.setText(text.write(object));
+		for (Element<T> element : elements.values())
+			element.fill(object, node);
+	}
+
+	private void write(T object, XMLWriter writer, Appendable output, int level) throws IOException {
+		writer.start(tag, output, level);
+		for (Property<T> property : attributes.values()) {
+			String value = property.write(object);
+			if (value != null)
+				writer.attribute(property.name, value, output);
+		}
+		boolean first = true;
+		for (Element<T> element : elements.values())
+			first = element.write(object, writer, output, level + 1, first);
+		if (first)
+			writer.close(tag, text == null ? null : text.write(object), output);
+		else
+			writer.end(tag, output, level);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void attribute(Object object, String name, String value) {
+		Property<T> property = attributes.get(name);
+		if (property != null)
+			property.read((T) object, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void text(Object object, String value) {
+		if (text != null && value != null && !value.isEmpty())
+			text.read((T) object, value);
+	}
+
+	private IllegalArgumentException mismatch(String found) {
+		return new IllegalArgumentException(String.format("Expected element <%s> but found <%s>", tag, found));
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLBinder [tag=%s, attributes=%s, text=%s, elements=%s]", tag, attributes.keySet(),
+				text != null, elements.keySet());
+	}
+
+	private static <T, V> Property<T> property(String name, XMLConverter<V> converter, Function<T, V> getter,
+			BiConsumer<T, V> setter) {
+		Objects.requireNonNull(name);
+		Objects.requireNonNull(converter);
+		Objects.requireNonNull(getter);
+		Objects.requireNonNull(setter);
+		return new Property<>(name, (object, string) -> setter.accept(object, converter.parse(string)), object -> {
+			V value = getter.apply(object);
+			return value == null ? null : converter.format(value);
+		});
+	}
+
+	/**
+	 * Configures and creates an {@link XMLBinder}. Attributes and child elements are written in the order they are
+	 * bound.
+	 *
+	 * @param <T> the type of the bound objects
+	 */
+	public static final class Builder<T> {
+
+		private final String tag;
+		private final Supplier<T> factory;
+		private final Map<String, Property<T>> attributes;
+		private Property<T> text;
+		private final Map<String, Element<T>> elements;
+		private XMLSchema schema;
+
+		private Builder(String tag, Supplier<T> factory) {
+			this.tag = tag;
+			this.factory = factory;
+			this.attributes = new LinkedHashMap<>();
+			this.text = null;
+			this.elements = new LinkedHashMap<>();
+			this.schema = null;
+		}
+
+		/**
+		 * Binds an attribute to a {@link String} property.
+		 *
+		 * @param name   the attribute name
+		 * @param getter the getter of the property
+		 * @param setter the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the attribute is already bound
+		 */
+		public Builder<T> attribute(String name, Function<T, String> getter, BiConsumer<T, String> setter) {
+			return attribute(name, XMLConverter.STRING, getter, setter);
+		}
+
+		/**
+		 * Binds an attribute to a property converted by an {@link XMLConverter}.
+		 *
+		 * @param <V>       the type of the property
+		 * @param name      the attribute name
+		 * @param converter the converter of the property values
+		 * @param getter    the getter of the property
+		 * @param setter    the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the attribute is already bound
+		 */
+		public <V> Builder<T> attribute(String name, XMLConverter<V> converter, Function<T, V> getter,
+				BiConsumer<T, V> setter) {
+			if (attributes.containsKey(name))
+				throw new IllegalArgumentException(String.format("Attribute \"%s\" is already bound", name));
+			attributes.put(name, property(name, converter, getter, setter));
+			return this;
+		}
+
+		/**
+		 * Binds the text content to a {@link String} property.
+		 *
+		 * @param getter the getter of the property
+		 * @param setter the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the text content is already bound
+		 */
+		public Builder<T> text(Function<T, String> getter, BiConsumer<T, String> setter) {
+			return text(XMLConverter.STRING, getter, setter);
+		}
+
+		/**
+		 * Binds the text content to a property converted by an {@link XMLConverter}. The text content is only written
+		 * if no child element is written.
+		 *
+		 * @param <V>       the type of the property
+		 * @param converter the converter of the property values
+		 * @param getter    the getter of the property
+		 * @param setter    the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the text content is already bound
+		 */
+		public <V> Builder<T> text(XMLConverter<V> converter, Function<T, V> getter, BiConsumer<T, V> setter) {
+			if (text != null)
+				throw new IllegalArgumentException("Text is already bound");
+			text = property(tag, converter, getter, setter);
+			return this;
+		}
+
+		/**
+		 * Binds the text content of a child element to a {@link String} property.
+		 *
+		 * @param tag    the tag of the child element
+		 * @param getter the getter of the property
+		 * @param setter the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if a child element with the tag is already bound
+		 */
+		public Builder<T> element(String tag, Function<T, String> getter, BiConsumer<T, String> setter) {
+			return element(tag, XMLConverter.STRING, getter, setter);
+		}
+
+		/**
+		 * Binds the text content of a child element to a property converted by an {@link XMLConverter}. If several
+		 * child elements have the tag, the last one is bound.
+		 *
+		 * @param <V>       the type of the property
+		 * @param tag       the tag of the child element
+		 * @param converter the converter of the property values
+		 * @param getter    the getter of the property
+		 * @param setter    the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if a child element with the tag is already bound
+		 */
+		public <V> Builder<T> element(String tag, XMLConverter<V> converter, Function<T, V> getter,
+				BiConsumer<T, V> setter) {
+			return bind(new ValueElement<>(property(tag, converter, getter, setter)));
+		}
+
+		/**
+		 * Binds a child element to a property holding an object bound by another binder. If several child elements have
+		 * the tag of the binder, the last one is bound.
+		 *
+		 * @param <C>    the type of the property
+		 * @param binder the binder of the child element
+		 * @param getter the getter of the property
+		 * @param setter the setter of the property
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if a child element with the tag of the binder is already bound
+		 */
+		public <C> Builder<T> node(XMLBinder<C> binder, Function<T, C> getter, BiConsumer<T, C> setter) {
+			Objects.requireNonNull(getter);
+			return bind(new ObjectElement<>(binder, object -> Collections.singletonList(getter.apply(object)), setter));
+		}
+
+		/**
+		 * Binds repeated child elements to a collection of objects bound by another binder.
+		 *
+		 * @param <C>    the type of the collection elements
+		 * @param binder the binder of the child elements
+		 * @param getter the getter of the collection
+		 * @param adder  the method adding an object to the collection
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if a child element with the tag of the binder is already bound
+		 */
+		public <C> Builder<T> nodes(XMLBinder<C> binder, Function<T, ? extends Iterable<C>> getter,
+				BiConsumer<T, C> adder) {
+			return bind(new ObjectElement<>(binder, getter, adder));
+		}
+
+		/**
+		 * Sets the schema that documents parsed or read by the binder are validated against while they are tokenized,
+		 * so invalid documents are rejected before their elements are bound. The schema is not used when the binder
+		 * binds nodes or nested elements of another binder.
+		 *
+		 * @param schema the schema, or {@code null} to disable validation
+		 *
+		 * @return a reference to this object
+		 */
+		public Builder<T> schema(XMLSchema schema) {
+			this.schema = schema;
+			return this;
+		}
+
+		/**
+		 * Creates the binder.
+		 *
+		 * @return a new {@link XMLBinder}
+		 */
+		public XMLBinder<T> build() {
+			return new XMLBinder<>(this);
+		}
+
+		private Builder<T> bind(Element<T> element) {
+			if (elements.containsKey(element.tag))
+				throw new IllegalArgumentException(String.format("Element \"%s\" is already bound", element.tag));
+			elements.put(element.tag, element);
+			return this;
+		}
+
+	}
+
+	/**
+	 * A bound attribute or text content, converted to and from strings.
+	 */
+	private static final class Property<T> {
+
+		private final String name;
+		private final BiConsumer<T, String> reader;
+		private final Function<T, String> writer;
+
+		private Property(String name, BiConsumer<T, String> reader, Function<T, String> writer) {
+			this.name = name;
+			this.reader = reader;
+			this.writer = writer;
+		}
+
+		private void read(T object, String value) {
+			reader.accept(object, value);
+		}
+
+		private String write(T object) {
+			return writer.apply(object);
+		}
+
+	}
+
+	/**
+	 * A bound child element.
+	 */
+	private abstract static class Element<T> {
+
+		protected final String tag;
+
+		protected Element(String tag) {
+			this.tag = tag;
+		}
+
+		abstract void read(T object, XMLNode node);
+
+		abstract Frame open();
+
+		abstract void close(Object object, Frame frame);
+
+		abstract void fill(T object, XMLNode parent);
+
+		/**
+		 * Writes the child elements of an object bound to this element. The start tag of the parent element is
+		 * completed before the first child element, so every value is retrieved and converted exactly once.
+		 *
+		 * @return {@code true} if nothing has been written so far, {@code false} otherwise
+		 */
+		abstract boolean write(T object, XMLWriter writer, Appendable output, int level, boolean first)
+				throws IOException;
+
+		static void next(XMLWriter writer, Appendable output, boolean first) throws IOException {
+			if (first)
+				writer.open(output);
+			else
+				writer.separator(output);
+		}
+
+	}
+
+	private static final class ValueElement<T> extends Element<T> {
+
+		private final Property<T> property;
+
+		private ValueElement(Property<T> property) {
+			super(property.name);
+			this.property = property;
+		}
+
+		@Override
+		void read(T object, XMLNode node) {
+			if (node.hasText())
+				property.read(object, node.getText());
+		}
+
+		@Override
+		Frame open() {
+			return new Frame(null, null, this);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void close(Object object, Frame frame) {
+			if (frame.text != null && !frame.text.isEmpty())
+				property.read((T) object, frame.text);
+		}
+
+		@Override
+		void fill(T object, XMLNode parent) {
+			String value = property.write(object);
+			if (value != null)
+				parent.addNode(tag).setText(value);
+		}
+
+		@Override
+		boolean write(T object, XMLWriter writer, Appendable output, int level, boolean first) throws IOException {
+			String value = property.write(object);
+			if (value == null)
+				return first;
+			next(writer, output, first);
+			writer.start(tag, output, level);
+			writer.close(tag, value, output);
+			return false;
+		}
+
+	}
+
+	private static final class ObjectElement<T, C> extends Element<T> {
+
+		private final XMLBinder<C> binder;
+		private final Function<T, ? extends Iterable<C>> getter;
+		private final BiConsumer<T, C> setter;
+
+		private ObjectElement(XMLBinder<C> binder, Function<T, ? extends Iterable<C>> getter, BiConsumer<T, C> setter) {
+			super(binder.tag);
+			this.binder = binder;
+			this.getter = Objects.requireNonNull(getter);
+			this.setter = Objects.requireNonNull(setter);
+		}
+
+		@Override
+		void read(T object, XMLNode node) {
+			setter.accept(object, binder.fromNode(node));
+		}
+
+		@Override
+		Frame open() {
+			return new Frame(binder, binder.factory.get(), this);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		void close(Object object, Frame frame) {
+			setter.accept((T) object, (C) frame.object);
+		}
+
+		@Override
+		void fill(T object, XMLNode parent) {
+			for (C value : getter.apply(object))
+				if (value != null)
+					binder.fill(value, parent.addNode(null));
+		}
+
+		@Override
+		boolean write(T object, XMLWriter writer, Appendable output, int level, boolean first) throws IOException {
+			for (C value : getter.apply(object))
+				if (value != null) {
+					next(writer, output, first);
+					binder.write(value, writer, output, level);
+					first = false;
+				}
+			return first;
+		}
+
+	}
+
+	/**
+	 * An element being bound while its document is parsed. Frames of bound text elements have no binder and no object.
+	 */
+	private static final class Frame {
+
+		private final XMLBinder<?> binder;
+		private final Object object;
+		private final Element<?> element;
+		private String text;
+
+		private Frame(XMLBinder<?> binder, Object object, Element<?> element) {
+			this.binder = binder;
+			this.object = object;
+			this.element = element;
+			this.text = null;
+		}
+
+	}
+
+	/**
+	 * Binds elements reported by the parser, skipping unbound elements and their descendants.
+	 */
+	private static final class Reader<T> implements XMLHandler {
+
+		private final XMLBinder<T> binder;
+		private final Deque<Frame> frames;
+		private int skipped;
+		private Object result;
+
+		private Reader(XMLBinder<T> binder) {
+			this.binder = binder;
+			this.frames = new ArrayDeque<>();
+			this.skipped = 0;
+			this.result = null;
+		}
+
+		@Override
+		public void start(String tag) {
+			if (skipped > 0)
+				skipped++;
+			else if (frames.isEmpty()) {
+				if (!binder.tag.equals(tag))
+					throw binder.mismatch(tag);
+				frames.push(new Frame(binder, binder.factory.get(), null));
+			} else {
+				XMLBinder<?> parent = frames.peek().binder;
+				Element<?> element = parent == null ? null : parent.elements.get(tag);
+				if (element == null)
+					skipped = 1;
+				else
+					frames.push(element.open());
+			}
+		}
+
+		@Override
+		public void attribute(String name, String value) {
+			if (skipped == 0 && frames.peek().binder != null)
+				frames.peek().binder.attribute(frames.peek().object, name, value);
+		}
+
+		@Override
+		public void text(String text) {
+			if (skipped == 0)
+				frames.peek().text = text;
+		}
+
+		@Override
+		public void end() {
+			if (skipped > 0) {
+				skipped--;
+				return;
+			}
+			Frame frame = frames.pop();
+			if (frame.binder != null)
+				frame.binder.text(frame.object, frame.text);
+			if (frames.isEmpty())
+				result = frame.object;
+			else
+				frame.element.close(frames.peek().object, frame);
+		}
+
+		/**
+		 * Completes the elements left open at the end of the document and retrieves the bound root object.
+		 *
+		 * @return the bound root object
+		 *
+		 * @throws IllegalArgumentException if the document has no root element
+		 */
+		@SuppressWarnings("unchecked")
+		private T result() {
+			skipped = 0;
+			while (!frames.isEmpty())
+				end();
+			if (result == null)
+				throw binder.mismatch(null);
+			return (T) result;
+		}
+
+	}
+
+}
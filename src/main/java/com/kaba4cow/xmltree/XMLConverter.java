@@ -0,0 +1,101 @@
+package com.kaba4cow.xmltree;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Converts values of bound properties to and from the strings stored in attributes and text content.
+ *
+ * @param <V> the type of the values
+ *
+ * @see XMLBinder
+ */
+public interface XMLConverter<V> {
+
+	/**
+	 * Converter for {@link String} values, which are stored as they are.
+	 */
+	XMLConverter<String> STRING = of(Function.identity(), Function.identity());
+
+	/**
+	 * Converter for {@link Integer} values, parsed like {@link XMLAttribute#getInt()}.
+	 */
+	XMLConverter<Integer> INT = of(XMLValue::parseInt, XMLValue::format);
+
+	/**
+	 * Converter for {@link Long} values, parsed like {@link XMLAttribute#getLong()}.
+	 */
+	XMLConverter<Long> LONG = of(XMLValue::parseLong, XMLValue::format);
+
+	/**
+	 * Converter for {@link Double} values, parsed like {@link XMLAttribute#getDouble()}.
+	 */
+	XMLConverter<Double> DOUBLE = of(XMLValue::parseDouble, XMLValue::format);
+
+	/**
+	 * Converter for {@link Boolean} values, parsed like {@link XMLAttribute#getBoolean()}.
+	 */
+	XMLConverter<Boolean> BOOLEAN = of(XMLValue::parseBoolean, XMLValue::format);
+
+	/**
+	 * Parses a value from its string representation.
+	 *
+	 * @param string the string to parse, never {@code null}
+	 *
+	 * @return the parsed value
+	 *
+	 * @throws IllegalArgumentException if the string does not represent a value
+	 */
+	V parse(String string);
+
+	/**
+	 * Formats a value as its string representation.
+	 *
+	 * @param value the value to format, never {@code null}
+	 *
+	 * @return the string representation of the value
+	 */
+	String format(V value);
+
+	/**
+	 * Creates a converter from a pair of functions.
+	 *
+	 * @param <V>       the type of the values
+	 * @param parser    the function parsing strings
+	 * @param formatter the function formatting values
+	 *
+	 * @return a new converter
+	 */
+	static <V> XMLConverter<V> of(Function<String, V> parser, Function<V, String> formatter) {
+		Objects.requireNonNull(parser);
+		Objects.requireNonNull(formatter);
+		return new XMLConverter<V>() {
+
+			@Override
+			public V parse(String string) {
+				return parser.apply(string);
+			}
+
+			@Override
+			public String format(V value) {
+				return formatter.apply(value);
+			}
+
+		};
+	}
+
+	/**
+	 * Creates a converter for the constants of an enum type, stored by name and parsed like
+	 * {@link XMLAttribute#getEnum(Class)}.
+	 *
+	 * @param <E>  the enum type
+	 * @param type the class of the enum type
+	 *
+	 * @return a new converter
+	 */
+	static <E extends Enum<E>> XMLConverter<E> forEnum(Class<E> type) {
+		Objects.requireNonNull(type);
+		return of(string -> XMLValue.parseEnum(type, string), Enum::name);
+	}
+
+}
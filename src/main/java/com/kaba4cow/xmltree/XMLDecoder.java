@@ -0,0 +1,112 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes byte chunks into characters and feeds them to an {@link XMLParser}. Multi-byte sequences split across chunk
+ * boundaries are carried over to the next chunk, and malformed input is replaced like {@link String#String(byte[],
+ * Charset)} does.
+ */
+class XMLDecoder {
+
+	private static final int CHUNK_SIZE = 1 << 13;
+
+	private final XMLParser parser;
+	private final CharsetDecoder decoder;
+	private final CharBuffer chars;
+	private final ByteBuffer pending;
+
+	public XMLDecoder(XMLParser parser, Charset charset) {
+		this.parser = parser;
+		this.decoder = charset.newDecoder()//
+				.onMalformedInput(CodingErrorAction.REPLACE)//
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = CharBuffer.allocate(CHUNK_SIZE);
+		this.pending = ByteBuffer.allocate(16);
+	}
+
+	/**
+	 * Reads a channel until end-of-stream, feeding it chunk by chunk to a parser that has begun a document, and
+	 * completes the document. The parser is reset if reading or parsing fails.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 * @param charset the {@link Charset} of the document
+	 * @param parser  the parser to feed
+	 *
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the document contains an unmatched closing tag
+	 */
+	public static void read(ReadableByteChannel channel, Charset charset, XMLParser parser) throws IOException {
+		XMLDecoder decoder = new XMLDecoder(parser, charset);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		try {
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				decoder.decode(buffer);
+				buffer.clear();
+			}
+			decoder.finish();
+		} catch (IOException | RuntimeException exception) {
+			parser.reset();
+			throw exception;
+		}
+		parser.end();
+	}
+
+	/**
+	 * Decodes the remaining bytes of a chunk. The buffer is fully consumed.
+	 *
+	 * @param bytes the chunk to decode
+	 */
+	public void decode(ByteBuffer bytes) {
+		parser.consumed(bytes.remaining());
+		while (pending.position() > 0 && bytes.hasRemaining()) {
+			pending.put(bytes.get()).flip();
+			decode(pending, false);
+			pending.compact();
+		}
+		decode(bytes, false);
+		pending.put(bytes);
+	}
+
+	/**
+	 * Decodes any bytes left over from previous chunks and resets the decoder for the next document.
+	 */
+	public void finish() {
+		pending.flip();
+		decode(pending, true);
+		while (decoder.flush(chars).isOverflow())
+			drain();
+		drain();
+		pending.clear();
+		decoder.reset();
+	}
+
+	/**
+	 * Discards any buffered bytes and characters and resets the decoder for the next document.
+	 */
+	public void reset() {
+		pending.clear();
+		chars.clear();
+		decoder.reset();
+	}
+
+	private void decode(ByteBuffer bytes, boolean endOfInput) {
+		while (decoder.decode(bytes, chars, endOfInput).isOverflow())
+			drain();
+		drain();
+	}
+
+	private void drain() {
+		chars.flip();
+		parser.feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+		chars.clear();
+	}
+
+}
@@ -0,0 +1,304 @@
+package com.kaba4cow.xmltree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Computes and applies {@link XMLPatch} edit scripts between {@link XMLNode} trees.
+ * <p>
+ * Child lists are matched in two steps. Children with equal subtrees are matched first through their cached structural
+ * hash codes, so unchanged regions are skipped without being visited again. The remaining children are paired in
+ * order by tag and compared recursively. Children left unmatched are deleted or inserted, and matched children that
+ * changed position are moved, keeping the longest run of children that are already in order in place. Diffing a child
+ * list takes time proportional to {@code n log n} for {@code n} children.
+ */
+public final class XMLDiff {
+
+	private XMLDiff() {}
+
+	/**
+	 * Computes the edit script that transforms one tree into another.
+	 *
+	 * @param source the tree to transform
+	 * @param target the tree to obtain
+	 * 
+	 * @return an {@link XMLPatch} that is empty if the trees are equal
+	 */
+	public static XMLPatch diff(XMLNode source, XMLNode target) {
+		List<XMLPatch.Operation> operations = new ArrayList<>();
+		Deque<XMLNode> sources = new ArrayDeque<>();
+		Deque<XMLNode> targets = new ArrayDeque<>();
+		Deque<int[]> paths = new ArrayDeque<>();
+		sources.push(source);
+		targets.push(target);
+		paths.push(new int[0]);
+		while (!sources.isEmpty()) {
+			XMLNode a = sources.pop();
+			XMLNode b = targets.pop();
+			int[] path = paths.pop();
+			if (a.equals(b))
+				continue;
+			if (!Objects.equals(a.getTag(), b.getTag()))
+				operations.add(set(XMLPatch.Type.SET_TAG, path, null, b.getTag()));
+			if (!Objects.equals(a.getText(), b.getText()))
+				operations.add(set(XMLPatch.Type.SET_TEXT, path, null, b.getText()));
+			diffAttributes(a, b, path, operations);
+			boolean[] exact = new boolean[b.getNodeCount()];
+			int[] matches = matchNodes(a, b, exact);
+			diffNodes(a, b, path, matches, operations);
+			for (int j = b.getNodeCount() - 1; j >= 0; j--)
+				if (matches[j] != -1 && !exact[j]) {
+					sources.push(a.getNode(matches[j]));
+					targets.push(b.getNode(j));
+					paths.push(child(path, j));
+				}
+		}
+		return new XMLPatch(operations);
+	}
+
+	/**
+	 * Applies an edit script to a tree in place.
+	 *
+	 * @param patch the edit script, computed against a tree equal to {@code node}
+	 * @param node  the tree to modify
+	 * 
+	 * @return a reference to {@code node}
+	 * 
+	 * @throws IndexOutOfBoundsException if the patch does not fit the tree
+	 */
+	public static XMLNode apply(XMLPatch patch, XMLNode node) {
+		for (XMLPatch.Operation operation : patch.getOperations()) {
+			XMLNode target = node;
+			for (int index : operation.getPath())
+				target = target.getNode(index);
+			switch (operation.getType()) {
+				case SET_TAG:
+					target.setTag(operation.getValue());
+					break;
+				case SET_TEXT:
+					target.setText(operation.getValue());
+					break;
+				case SET_ATTRIBUTE:
+					target.getOrAddAttribute(operation.getName()).setValue(operation.getValue());
+					break;
+				case REMOVE_ATTRIBUTE:
+					target.removeAttribute(operation.getName());
+					break;
+				case INSERT_NODE:
+					target.insertNode(operation.getIndex(), operation.node());
+					break;
+				case DELETE_NODE:
+					target.removeNode(operation.getIndex());
+					break;
+				case MOVE_NODE:
+					target.moveNode(operation.getIndex(), operation.getTarget());
+					break;
+			}
+		}
+		return node;
+	}
+
+	private static void diffAttributes(XMLNode a, XMLNode b, int[] path, List<XMLPatch.Operation> operations) {
+		List<XMLAttribute> sourceAttributes = a.getAttributes();
+		List<XMLAttribute> targetAttributes = b.getAttributes();
+		if (sourceAttributes.equals(targetAttributes))
+			return;
+		Map<String, String> sourceValues = values(sourceAttributes);
+		Map<String, String> targetValues = values(targetAttributes);
+		List<String> order = new ArrayList<>();
+		for (XMLAttribute attribute : sourceAttributes)
+			if (targetValues.containsKey(attribute.getName()))
+				order.add(attribute.getName());
+		for (XMLAttribute attribute : targetAttributes)
+			if (!sourceValues.containsKey(attribute.getName()))
+				order.add(attribute.getName());
+		boolean ordered = true;
+		for (int i = 0; i < targetAttributes.size() && ordered; i++)
+			ordered = Objects.equals(order.get(i), targetAttributes.get(i).getName());
+		for (XMLAttribute attribute : sourceAttributes)
+			if (!ordered || !targetValues.containsKey(attribute.getName()))
+				operations.add(set(XMLPatch.Type.REMOVE_ATTRIBUTE, path, attribute.getName(), null));
+		for (XMLAttribute attribute : targetAttributes)
+			if (!ordered || !sourceValues.containsKey(attribute.getName())
+					|| !Objects.equals(sourceValues.get(attribute.getName()), attribute.getValue()))
+				operations.add(set(XMLPatch.Type.SET_ATTRIBUTE, path, attribute.getName(), attribute.getValue()));
+	}
+
+	private static Map<String, String> values(List<XMLAttribute> attributes) {
+		Map<String, String> values = new HashMap<>();
+		for (XMLAttribute attribute : attributes)
+			values.put(attribute.getName(), attribute.getValue());
+		return values;
+	}
+
+	/**
+	 * Matches the children of the target node to children of the source node, first by equal subtrees and then in
+	 * order by tag.
+	 *
+	 * @param exact receives for every target child whether it was matched to an equal subtree
+	 *
+	 * @return for every target child, the index of the matched source child, or {@code -1} if it has to be inserted
+	 */
+	private static int[] matchNodes(XMLNode a, XMLNode b, boolean[] exact) {
+		int[] matches = new int[b.getNodeCount()];
+		Arrays.fill(matches, -1);
+		boolean[] matched = new boolean[a.getNodeCount()];
+		Map<XMLNode, Deque<Integer>> subtrees = new HashMap<>();
+		for (int i = 0; i < a.getNodeCount(); i++)
+			subtrees.computeIfAbsent(a.getNode(i), key -> new ArrayDeque<>()).add(i);
+		for (int j = 0; j < b.getNodeCount(); j++) {
+			Deque<Integer> candidates = subtrees.get(b.getNode(j));
+			if (candidates != null && !candidates.isEmpty()) {
+				matches[j] = candidates.poll();
+				matched[matches[j]] = true;
+				exact[j] = true;
+			}
+		}
+		Map<String, Deque<Integer>> tags = new HashMap<>();
+		for (int i = 0; i < a.getNodeCount(); i++)
+			if (!matched[i])
+				tags.computeIfAbsent(a.getNode(i).getTag(), key -> new ArrayDeque<>()).add(i);
+		for (int j = 0; j < b.getNodeCount(); j++)
+			if (matches[j] == -1) {
+				Deque<Integer> candidates = tags.get(b.getNode(j).getTag());
+				if (candidates != null && !candidates.isEmpty())
+					matches[j] = candidates.poll();
+			}
+		return matches;
+	}
+
+	/**
+	 * Emits the deletions, insertions and moves that turn the child list of the source node into the child list of the
+	 * target node. The matched children forming the longest run that is already in order stay in place, and every
+	 * other child is moved or inserted once, directly before the next child that stays in place.
+	 * <p>
+	 * Every child is given a slot in the final layout, in which the children that stay in place keep their order and
+	 * the moved and inserted children sit in their target order before the next one staying in place. The children
+	 * present at any time are always ordered by their slots, so the index of every operation is the number of present
+	 * children in earlier slots, counted by a binary indexed tree.
+	 */
+	private static void diffNodes(XMLNode a, XMLNode b, int[] path, int[] matches,
+			List<XMLPatch.Operation> operations) {
+		int[] rank = new int[a.getNodeCount()];
+		Arrays.fill(rank, -1);
+		for (int match : matches)
+			if (match != -1)
+				rank[match] = 0;
+		for (int i = a.getNodeCount() - 1; i >= 0; i--)
+			if (rank[i] == -1)
+				operations.add(new XMLPatch.Operation(XMLPatch.Type.DELETE_NODE, path, i, -1, null, null, null));
+		int kept = 0;
+		for (int i = 0; i < rank.length; i++)
+			if (rank[i] != -1)
+				rank[i] = kept++;
+		boolean[] stable = stable(matches);
+		int[] targets = new int[kept];
+		Arrays.fill(targets, -1);
+		int[] runs = new int[matches.length + 1];
+		int run = 0;
+		for (int j = 0; j < matches.length; j++)
+			if (matches[j] != -1 && stable[j]) {
+				targets[rank[matches[j]]] = j;
+				runs[j] = run;
+				run = j + 1;
+			}
+		int[] origins = new int[kept];
+		int[] slots = new int[matches.length];
+		int count = 0;
+		for (int i = 0; i < rank.length; i++)
+			if (rank[i] != -1) {
+				int j = targets[rank[i]];
+				if (j != -1)
+					for (int k = runs[j]; k < j; k++)
+						slots[k] = count++;
+				origins[rank[i]] = count;
+				if (j != -1)
+					slots[j] = count;
+				count++;
+			}
+		for (int k = run; k < matches.length; k++)
+			slots[k] = count++;
+		int[] tree = new int[count + 1];
+		for (int origin : origins)
+			add(tree, origin, 1);
+		for (int j = matches.length - 1; j >= 0; j--) {
+			if (matches[j] == -1) {
+				operations.add(new XMLPatch.Operation(XMLPatch.Type.INSERT_NODE, path, count(tree, slots[j]), -1, null,
+						null, b.getNode(j).deepCopy()));
+				add(tree, slots[j], 1);
+			} else if (!stable[j]) {
+				int origin = origins[rank[matches[j]]];
+				int from = count(tree, origin);
+				add(tree, origin, -1);
+				int to = count(tree, slots[j]);
+				add(tree, slots[j], 1);
+				if (from != to)
+					operations.add(new XMLPatch.Operation(XMLPatch.Type.MOVE_NODE, path, from, to, null, null, null));
+			}
+		}
+	}
+
+	/**
+	 * Finds the longest run of matched target children whose source children are in increasing order.
+	 *
+	 * @return for every target child, whether it belongs to the run
+	 */
+	private static boolean[] stable(int[] matches) {
+		int[] tails = new int[matches.length];
+		int[] previous = new int[matches.length];
+		int length = 0;
+		for (int j = 0; j < matches.length; j++) {
+			if (matches[j] == -1)
+				continue;
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (matches[tails[middle]] < matches[j])
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			previous[j] = low == 0 ? -1 : tails[low - 1];
+			tails[low] = j;
+			if (low == length)
+				length++;
+		}
+		boolean[] stable = new boolean[matches.length];
+		for (int j = length == 0 ? -1 : tails[length - 1]; j != -1; j = previous[j])
+			stable[j] = true;
+		return stable;
+	}
+
+	private static void add(int[] tree, int slot, int delta) {
+		for (int i = slot + 1; i < tree.length; i += i & -i)
+			tree[i] += delta;
+	}
+
+	/**
+	 * Counts the children present in the slots before the specified one.
+	 */
+	private static int count(int[] tree, int slot) {
+		int count = 0;
+		for (int i = slot; i > 0; i -= i & -i)
+			count += tree[i];
+		return count;
+	}
+
+	private static XMLPatch.Operation set(XMLPatch.Type type, int[] path, String name, String value) {
+		return new XMLPatch.Operation(type, path, -1, -1, name, value, null);
+	}
+
+	private static int[] child(int[] path, int index) {
+		int[] child = Arrays.copyOf(path, path.length + 1);
+		child[path.length] = index;
+		return child;
+	}
+
+}
@@ -0,0 +1,390 @@
+package com.kaba4cow.xmltree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe cache of parsed XML files with a weight-bounded least-recently-used eviction policy.
+ * <p>
+ * Entries are keyed by the normalized absolute path and validated against the modification time and size of the file
+ * on every lookup, so changed files are parsed again. Trees are kept in the compact binary format and every lookup
+ * decodes a fresh {@link XMLNode}, so callers may modify the returned trees without affecting the cache.
+ * <p>
+ * Entries are spread over lock stripes by the hash of their path, so lookups of different files rarely contend. Every
+ * stripe keeps its entries in access order and every access takes a stamp from a shared clock, so the least recently
+ * used entry of the whole cache is the oldest of the first entries of the stripes, and an eviction takes time
+ * proportional to the number of stripes. Locks are only held while the entries are accessed; files are read, parsed,
+ * encoded and decoded outside of them.
+ * 
+ * @see XMLStatistics
+ */
+public class XMLDocumentCache {
+
+	private static final int STRIPES = 16;
+
+	private final long capacity;
+	private final Weigher weigher;
+	private final Stripe[] stripes;
+	private final AtomicLong weight;
+	private final AtomicLong clock;
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LongAdder evictions;
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param capacity the maximum total weight of the cached documents
+	 * @param weigher  the function computing the weight of a document
+	 * 
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public XMLDocumentCache(long capacity, Weigher weigher) {
+		if (capacity < 0L)
+			throw new IllegalArgumentException(String.format("Capacity must not be negative: %s", capacity));
+		this.capacity = capacity;
+		this.weigher = Objects.requireNonNull(weigher);
+		this.stripes = new Stripe[STRIPES];
+		for (int i = 0; i < stripes.length; i++)
+			stripes[i] = new Stripe();
+		this.weight = new AtomicLong();
+		this.clock = new AtomicLong();
+		this.hits = new LongAdder();
+		this.misses = new LongAdder();
+		this.evictions = new LongAdder();
+	}
+
+	/**
+	 * Creates a new cache bounded by the total number of nodes of the cached documents.
+	 *
+	 * @param maxNodes the maximum total number of nodes
+	 * 
+	 * @return a new {@link XMLDocumentCache}
+	 */
+	public static XMLDocumentCache byNodeCount(long maxNodes) {
+		return new XMLDocumentCache(maxNodes, (statistics, encodedLength) -> statistics.getNodeCount());
+	}
+
+	/**
+	 * Creates a new cache bounded by the total estimated heap size of the trees of the cached documents, as computed by
+	 * {@link XMLStatistics#getEstimatedSize()}.
+	 *
+	 * @param maxBytes the maximum total estimated size in bytes
+	 * 
+	 * @return a new {@link XMLDocumentCache}
+	 */
+	public static XMLDocumentCache byEstimatedSize(long maxBytes) {
+		return new XMLDocumentCache(maxBytes, (statistics, encodedLength) -> statistics.getEstimatedSize());
+	}
+
+	/**
+	 * Creates a new cache bounded by the total size of the memory actually held by the cache, which is the length of
+	 * the binary encoding of the cached documents.
+	 *
+	 * @param maxBytes the maximum total encoded size in bytes
+	 * 
+	 * @return a new {@link XMLDocumentCache}
+	 */
+	public static XMLDocumentCache byEncodedSize(long maxBytes) {
+		return new XMLDocumentCache(maxBytes, (statistics, encodedLength) -> encodedLength);
+	}
+
+	/**
+	 * Retrieves the parsed UTF-8 encoded XML file at the specified path, parsing it if it is not cached or has changed
+	 * since it was cached. Documents heavier than the capacity are parsed but not cached.
+	 *
+	 * @param path the path of the file
+	 * 
+	 * @return a new {@link XMLNode} owned by the caller
+	 * 
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the file contains an unmatched closing tag
+	 */
+	public XMLNode get(Path path) throws IOException {
+		Path key = path.toAbsolutePath().normalize();
+		BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+		Entry entry = lookup(key);
+		if (entry != null) {
+			if (entry.matches(attributes)) {
+				hits.increment();
+				return XMLNode.readBinary(ByteBuffer.wrap(entry.binary));
+			}
+			remove(key, entry);
+		}
+		misses.increment();
+		XMLNode node;
+		try (FileChannel channel = FileChannel.open(key, StandardOpenOption.READ)) {
+			node = XMLNode.read(channel);
+		}
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		node.writeBinary(stream);
+		byte[] binary = stream.toByteArray();
+		long nodeWeight = weigher.weigh(node.statistics(), binary.length);
+		if (nodeWeight <= capacity)
+			put(key, new Entry(binary, nodeWeight, attributes));
+		return node;
+	}
+
+	/**
+	 * Removes the document at the specified path from the cache.
+	 *
+	 * @param path the path of the file
+	 */
+	public void invalidate(Path path) {
+		Path key = path.toAbsolutePath().normalize();
+		Stripe stripe = stripe(key);
+		stripe.lock.lock();
+		try {
+			Entry entry = stripe.entries.remove(key);
+			if (entry != null)
+				weight.addAndGet(-entry.weight);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes all documents from the cache.
+	 */
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				for (Entry entry : stripe.entries.values())
+					weight.addAndGet(-entry.weight);
+				stripe.entries.clear();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of cached documents.
+	 *
+	 * @return the number of documents
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				size += stripe.entries.size();
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Retrieves the total weight of the cached documents.
+	 *
+	 * @return the total weight
+	 */
+	public long getWeight() {
+		return weight.get();
+	}
+
+	/**
+	 * Retrieves the maximum total weight of the cached documents.
+	 *
+	 * @return the capacity
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Retrieves the number of lookups served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Retrieves the number of lookups that had to parse the file.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Retrieves the number of documents evicted to stay within the capacity.
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	private Stripe stripe(Path key) {
+		int hash = key.hashCode();
+		return stripes[(hash ^ hash >>> 16) & (STRIPES - 1)];
+	}
+
+	private Entry lookup(Path key) {
+		Stripe stripe = stripe(key);
+		stripe.lock.lock();
+		try {
+			Entry entry = stripe.entries.get(key);
+			if (entry != null)
+				entry.stamp = clock.incrementAndGet();
+			return entry;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	private void put(Path key, Entry entry) {
+		Stripe stripe = stripe(key);
+		stripe.lock.lock();
+		try {
+			entry.stamp = clock.incrementAndGet();
+			Entry previous = stripe.entries.put(key, entry);
+			weight.addAndGet(previous == null ? entry.weight : entry.weight - previous.weight);
+		} finally {
+			stripe.lock.unlock();
+		}
+		while (weight.get() > capacity) {
+			Stripe eldest = null;
+			long oldest = Long.MAX_VALUE;
+			for (Stripe candidate : stripes) {
+				long stamp = candidate.eldest();
+				if (stamp < oldest) {
+					oldest = stamp;
+					eldest = candidate;
+				}
+			}
+			if (eldest == null)
+				break;
+			if (eldest.evict(oldest))
+				evictions.increment();
+		}
+	}
+
+	private void remove(Path key, Entry entry) {
+		Stripe stripe = stripe(key);
+		stripe.lock.lock();
+		try {
+			if (stripe.entries.remove(key, entry))
+				weight.addAndGet(-entry.weight);
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLDocumentCache [size=%s, weight=%s, capacity=%s, hits=%s, misses=%s, evictions=%s]",
+				size(), getWeight(), capacity, getHitCount(), getMissCount(), getEvictionCount());
+	}
+
+	/**
+	 * Computes the weight of a document when it is cached.
+	 */
+	@FunctionalInterface
+	public interface Weigher {
+
+		/**
+		 * Computes the weight of a parsed document.
+		 *
+		 * @param statistics    the {@link XMLStatistics} of the document
+		 * @param encodedLength the length of the binary encoding retained by the cache, in bytes
+		 * 
+		 * @return the weight of the document
+		 */
+		long weigh(XMLStatistics statistics, int encodedLength);
+
+	}
+
+	private class Stripe {
+
+		private final LinkedHashMap<Path, Entry> entries;
+		private final ReentrantLock lock;
+
+		private Stripe() {
+			this.entries = new LinkedHashMap<>(16, 0.75f, true);
+			this.lock = new ReentrantLock();
+		}
+
+		/**
+		 * Retrieves the access stamp of the least recently used entry of this stripe.
+		 *
+		 * @return the stamp, or {@link Long#MAX_VALUE} if the stripe is empty
+		 */
+		private long eldest() {
+			lock.lock();
+			try {
+				return entries.isEmpty() ? Long.MAX_VALUE : entries.values().iterator().next().stamp;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * Evicts the least recently used entry of this stripe if it was not accessed since its stamp was read.
+		 *
+		 * @param stamp the stamp read by {@link #eldest()}
+		 * 
+		 * @return {@code true} if the entry was evicted, {@code false} otherwise
+		 */
+		private boolean evict(long stamp) {
+			lock.lock();
+			try {
+				Iterator<Entry> iterator = entries.values().iterator();
+				if (!iterator.hasNext())
+					return false;
+				Entry entry = iterator.next();
+				if (entry.stamp != stamp)
+					return false;
+				iterator.remove();
+				weight.addAndGet(-entry.weight);
+				return true;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+	}
+
+	private static class Entry {
+
+		private final byte[] binary;
+		private final long weight;
+		private final FileTime lastModified;
+		private final long size;
+		private long stamp;
+
+		private Entry(byte[] binary, long weight, BasicFileAttributes attributes) {
+			this.binary = binary;
+			this.weight = weight;
+			this.lastModified = attributes.lastModifiedTime();
+			this.size = attributes.size();
+			this.stamp = 0L;
+		}
+
+		private boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+		}
+
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An {@link Appendable} that encodes characters in fixed-size chunks and writes them to a
+ * {@link WritableByteChannel}. The channel is expected to be in blocking mode.
+ */
+class XMLEncoder implements Appendable {
+
+	private static final int CHUNK_SIZE = 1 << 13;
+
+	private final WritableByteChannel channel;
+	private final CharsetEncoder encoder;
+	private final CharBuffer chars;
+	private final ByteBuffer bytes;
+	private long characters;
+	private long written;
+
+	public XMLEncoder(WritableByteChannel channel, Charset charset) {
+		this.channel = channel;
+		this.encoder = charset.newEncoder()//
+				.onMalformedInput(CodingErrorAction.REPLACE)//
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = CharBuffer.allocate(CHUNK_SIZE);
+		this.bytes = ByteBuffer.allocate(CHUNK_SIZE * 4);
+		this.characters = 0L;
+		this.written = 0L;
+	}
+
+	/**
+	 * Retrieves the number of characters encoded so far.
+	 *
+	 * @return the number of characters
+	 */
+	public long getCharacters() {
+		return characters;
+	}
+
+	/**
+	 * Retrieves the number of bytes written to the channel so far.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getBytes() {
+		return written;
+	}
+
+	@Override
+	public XMLEncoder append(CharSequence sequence) throws IOException {
+		return sequence == null ? append("null", 0, 4) : append(sequence, 0, sequence.length());
+	}
+
+	@Override
+	public XMLEncoder append(CharSequence sequence, int start, int end) throws IOException {
+		if (sequence == null)
+			return append("null", start, end);
+		for (int i = start; i < end; i++)
+			append(sequence.charAt(i));
+		return this;
+	}
+
+	@Override
+	public XMLEncoder append(char c) throws IOException {
+		if (!chars.hasRemaining())
+			encode(false);
+		chars.put(c);
+		return this;
+	}
+
+	/**
+	 * Encodes and writes all buffered characters.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void finish() throws IOException {
+		encode(true);
+		while (encoder.flush(bytes).isOverflow())
+			write();
+		write();
+		encoder.reset();
+	}
+
+	private void encode(boolean endOfInput) throws IOException {
+		chars.flip();
+		int buffered = chars.remaining();
+		while (encoder.encode(chars, bytes, endOfInput).isOverflow())
+			write();
+		write();
+		characters += buffered - chars.remaining();
+		chars.compact();
+	}
+
+	private void write() throws IOException {
+		bytes.flip();
+		written += bytes.remaining();
+		while (bytes.hasRemaining())
+			channel.write(bytes);
+		bytes.clear();
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.kaba4cow.xmltree;
+
+/**
+ * Receives the elements of a document from an {@link XMLParser} as they are tokenized, instead of having them built
+ * into {@link XMLNode}s. Events follow the same rules as tree building: text is trimmed, and the text reported last for
+ * an element is the text a built node would hold.
+ */
+interface XMLHandler {
+
+	/**
+	 * Called when an element is opened, before its attributes.
+	 *
+	 * @param tag the tag of the element
+	 */
+	void start(String tag);
+
+	/**
+	 * Called for every attribute of the element opened last.
+	 *
+	 * @param name  the attribute name
+	 * @param value the attribute value
+	 */
+	void attribute(String name, String value);
+
+	/**
+	 * Called with the trimmed text preceding a nested tag or the closing tag of the innermost open element.
+	 *
+	 * @param text the text, which may be empty
+	 */
+	void text(String text);
+
+	/**
+	 * Called when the innermost open element is closed, immediately after {@link #start(String)} and its attributes if
+	 * the element is self-closing.
+	 */
+	void end();
+
+}
@@ -0,0 +1,252 @@
+package com.kaba4cow.xmltree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the modifications of an {@link XMLNode} tree, started with {@link XMLNode#startTracking()}.
+ * <p>
+ * Every modification of a tracked node or of one of its attributes is appended to the journal as a {@link Change}, and
+ * marks the node and its ancestors as dirty. Serializing the tracked root reuses the output of the previous
+ * serialization for every clean subtree and only renders dirty nodes again, as long as the same indentation is used.
+ * Changes are kept until {@link #clear()} is called.
+ */
+public final class XMLJournal {
+
+	private final XMLNode root;
+	private final List<Change> changes;
+	private String output;
+	private char indent;
+
+	XMLJournal(XMLNode root) {
+		this.root = root;
+		this.changes = new ArrayList<>();
+		this.output = null;
+		this.indent = 0;
+	}
+
+	/**
+	 * Retrieves the node tracking was started on.
+	 *
+	 * @return the tracked root node
+	 */
+	public XMLNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Retrieves a copy of the recorded changes in the order they were made.
+	 *
+	 * @return a list of {@link Change}s
+	 */
+	public List<Change> getChanges() {
+		return new ArrayList<>(changes);
+	}
+
+	/**
+	 * Gets the number of recorded changes.
+	 *
+	 * @return the count of changes
+	 */
+	public int size() {
+		return changes.size();
+	}
+
+	/**
+	 * Checks if no changes have been recorded since tracking started or the journal was last cleared.
+	 *
+	 * @return {@code true} if there are no changes, {@code false} otherwise
+	 */
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * Discards the recorded changes. Dirty flags and the cached output are not affected.
+	 *
+	 * @return a reference to this object
+	 */
+	public XMLJournal clear() {
+		changes.clear();
+		return this;
+	}
+
+	void record(Type type, XMLNode node, String name, String value) {
+		changes.add(new Change(type, node, name, value));
+	}
+
+	/**
+	 * Retrieves the output of the previous serialization of the tracked root if it used the given indentation.
+	 *
+	 * @param indent the character used for indentation
+	 *
+	 * @return the previous output, or {@code null} if it cannot be reused
+	 */
+	String output(char indent) {
+		return output != null && this.indent == indent ? output : null;
+	}
+
+	void rendered(char indent, String output) {
+		this.indent = indent;
+		this.output = output;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLJournal [root=%s, changes=%s]", root.getTag(), changes.size());
+	}
+
+	/**
+	 * The type of a {@link Change}.
+	 */
+	public enum Type {
+
+		/**
+		 * The tag of the node was set.
+		 */
+		SET_TAG,
+
+		/**
+		 * The text of the node was set.
+		 */
+		SET_TEXT,
+
+		/**
+		 * A child node was added to the node.
+		 */
+		ADD_NODE,
+
+		/**
+		 * A child node was removed from the node.
+		 */
+		REMOVE_NODE,
+
+		/**
+		 * A child node of the node was moved to another index.
+		 */
+		MOVE_NODE,
+
+		/**
+		 * The child nodes of the node were sorted.
+		 */
+		SORT_NODES,
+
+		/**
+		 * All child nodes of the node were removed.
+		 */
+		CLEAR_NODES,
+
+		/**
+		 * An attribute was added to the node.
+		 */
+		ADD_ATTRIBUTE,
+
+		/**
+		 * An attribute of the node was renamed.
+		 */
+		RENAME_ATTRIBUTE,
+
+		/**
+		 * The value of an attribute of the node was set.
+		 */
+		SET_ATTRIBUTE,
+
+		/**
+		 * An attribute was removed from the node.
+		 */
+		REMOVE_ATTRIBUTE,
+
+		/**
+		 * The attributes of the node were sorted.
+		 */
+		SORT_ATTRIBUTES,
+
+		/**
+		 * All attributes of the node were removed.
+		 */
+		CLEAR_ATTRIBUTES
+
+	}
+
+	/**
+	 * A single modification recorded by an {@link XMLJournal}.
+	 */
+	public static final class Change {
+
+		private final Type type;
+		private final XMLNode node;
+		private final String name;
+		private final String value;
+
+		Change(Type type, XMLNode node, String name, String value) {
+			this.type = type;
+			this.node = node;
+			this.name = name;
+			this.value = value;
+		}
+
+		/**
+		 * Retrieves the type of the change.
+		 *
+		 * @return the change type
+		 */
+		public Type getType() {
+			return type;
+		}
+
+		/**
+		 * Retrieves the modified node. Changes to attributes and child nodes refer to the node owning them.
+		 *
+		 * @return the modified node
+		 */
+		public XMLNode getNode() {
+			return node;
+		}
+
+		/**
+		 * Retrieves the tag of the added or removed child node, or the name of the affected attribute.
+		 *
+		 * @return the tag or name, or {@code null} if the change type has none
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Retrieves the new tag, text or attribute value, or the previous name of a renamed attribute.
+		 *
+		 * @return the value, or {@code null} if the change type has none
+		 */
+		public String getValue() {
+			return value;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Change [type=%s, node=%s, name=%s, value=%s]", type, node.getTag(), name, value);
+		}
+
+	}
+
+	/**
+	 * The tracking state of a single node: its journal, whether it changed since the tracked root was last serialized,
+	 * and the location of its output in that serialization, relative to the output of its parent so that the layout of
+	 * a clean subtree stays valid wherever it is copied to.
+	 */
+	static final class Tracker {
+
+		final XMLJournal journal;
+		boolean dirty;
+		int offset;
+		int length;
+
+		Tracker(XMLJournal journal) {
+			this.journal = journal;
+			this.dirty = true;
+			this.offset = 0;
+			this.length = -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.kaba4cow.xmltree;
+
+/**
+ * Receives measurements of parsed and serialized documents. Implementations adapt the reports to a metrics system of
+ * choice. Both methods are called on the thread that completed the operation, so implementations that are installed
+ * globally must be thread-safe.
+ * <p>
+ * Measuring is skipped entirely while {@link #NONE} is installed, which is the default.
+ * 
+ * @see XMLNode#setMetrics(XMLMetrics)
+ * @see XMLPushParser#setMetrics(XMLMetrics)
+ */
+public interface XMLMetrics {
+
+	/**
+	 * Metrics that ignore all reports and disable measuring.
+	 */
+	XMLMetrics NONE = new XMLMetrics() {};
+
+	/**
+	 * Called after a document has been parsed completely.
+	 *
+	 * @param report the measurements of the parsed document
+	 */
+	default void parsed(XMLParseReport report) {}
+
+	/**
+	 * Called after a node has been serialized completely.
+	 *
+	 * @param report the measurements of the serialized node
+	 */
+	default void written(XMLWriteReport report) {}
+
+}
@@ -1,11 +1,30 @@
 package com.kaba4cow.xmltree;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -20,11 +39,19 @@ import com.kaba4cow.stringview.StringView;
  */
 public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 
+	private static final int CHUNK_SIZE = 1 << 13;
+
+	private static volatile XMLMetrics metrics = XMLMetrics.NONE;
+
 	private String tag;
+	private XMLQName qname;
 
 	private final List<XMLNode> nodes;
 	private final List<XMLAttribute> attributes;
 	private String text;
+	private Object parsed;
+	private int hash;
+	private XMLJournal.Tracker tracker;
 
 	/**
 	 * Creates a new XMLNode with no parent.
@@ -37,18 +64,218 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * Creates a new XMLNode by parsing an XML source string.
 	 *
 	 * @param source the XML source string to parse
+	 * 
+	 * @throws IllegalArgumentException if the source contains an unmatched closing tag
 	 */
 	public XMLNode(String source) {
 		this();
-		new XMLParser().parse(source).to(this);
+		XMLParser.local().parse(source, this);
+	}
+
+	/**
+	 * Parses a collection of XML source strings on the given executor. Every task reuses the parser buffers and symbol
+	 * table of the worker thread it runs on.
+	 *
+	 * @param sources  the XML source strings to parse
+	 * @param executor the {@link Executor} to run the parsing tasks on
+	 * 
+	 * @return a list of futures in the iteration order of {@code sources}, each completing with the parsed node or
+	 *         exceptionally with the error raised for that document
+	 */
+	public static List<CompletableFuture<XMLNode>> parseAll(Collection<String> sources, Executor executor) {
+		List<CompletableFuture<XMLNode>> futures = new ArrayList<>(sources.size());
+		for (String source : sources)
+			futures.add(CompletableFuture.supplyAsync(() -> new XMLNode(source), executor));
+		return futures;
+	}
+
+	/**
+	 * Reads and parses a collection of UTF-8 encoded XML files on the given executor. Every task reuses the parser
+	 * buffers and symbol table of the worker thread it runs on.
+	 *
+	 * @param paths    the paths of the XML files to parse
+	 * @param executor the {@link Executor} to run the parsing tasks on
+	 * 
+	 * @return a list of futures in the iteration order of {@code paths}, each completing with the parsed node or
+	 *         exceptionally with the error raised for that file, where I/O errors are wrapped in
+	 *         {@link UncheckedIOException}
+	 */
+	public static List<CompletableFuture<XMLNode>> readAll(Collection<Path> paths, Executor executor) {
+		List<CompletableFuture<XMLNode>> futures = new ArrayList<>(paths.size());
+		for (Path path : paths)
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+					return read(channel);
+				} catch (IOException exception) {
+					throw new UncheckedIOException(exception);
+				}
+			}, executor));
+		return futures;
+	}
+
+	/**
+	 * Installs the metrics that receive a report for every document parsed and every node serialized from now on.
+	 *
+	 * @param metrics the metrics to install, or {@link XMLMetrics#NONE} to disable measuring
+	 */
+	public static void setMetrics(XMLMetrics metrics) {
+		XMLNode.metrics = Objects.requireNonNull(metrics);
+	}
+
+	/**
+	 * Retrieves the currently installed metrics.
+	 *
+	 * @return the installed metrics, {@link XMLMetrics#NONE} by default
+	 */
+	public static XMLMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Reads and parses a UTF-8 encoded XML document from a channel until it reaches end-of-stream.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 * 
+	 * @return the parsed root node
+	 * 
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the document contains an unmatched closing tag
+	 */
+	public static XMLNode read(ReadableByteChannel channel) throws IOException {
+		return read(channel, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads and parses an XML document in the specified encoding from a channel until it reaches end-of-stream. Bytes
+	 * are decoded and tokenized chunk by chunk by the parser of the current thread, so the source text is never
+	 * buffered as a whole.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 * @param charset the {@link Charset} of the document
+	 * 
+	 * @return the parsed root node
+	 * 
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the document contains an unmatched closing tag
+	 */
+	public static XMLNode read(ReadableByteChannel channel, Charset charset) throws IOException {
+		XMLNode node = new XMLNode();
+		XMLParser parser = XMLParser.local();
+		parser.begin(node);
+		XMLDecoder.read(channel, charset, parser);
+		return node;
+	}
+
+	/**
+	 * Asynchronously reads and parses a UTF-8 encoded XML file. No thread is blocked while waiting for the file system.
+	 *
+	 * @param channel the {@link AsynchronousFileChannel} to read from, starting at position {@code 0}
+	 * 
+	 * @return a future completing with the parsed root node, or exceptionally with the I/O or parse error
+	 */
+	public static CompletableFuture<XMLNode> readAsync(AsynchronousFileChannel channel) {
+		return readAsync(channel, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Asynchronously reads and parses an XML file in the specified encoding. Each chunk is decoded and tokenized by a
+	 * dedicated parser on the completion handler thread, and no thread is blocked while waiting for the file system.
+	 *
+	 * @param channel the {@link AsynchronousFileChannel} to read from, starting at position {@code 0}
+	 * @param charset the {@link Charset} of the file
+	 * 
+	 * @return a future completing with the parsed root node, or exceptionally with the I/O or parse error
+	 */
+	public static CompletableFuture<XMLNode> readAsync(AsynchronousFileChannel channel, Charset charset) {
+		CompletableFuture<XMLNode> future = new CompletableFuture<>();
+		XMLNode node = new XMLNode();
+		XMLParser parser = new XMLParser();
+		XMLDecoder decoder = new XMLDecoder(parser, charset);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		parser.begin(node);
+		channel.read(buffer, 0L, 0L, new CompletionHandler<Integer, Long>() {
+
+			@Override
+			public void completed(Integer count, Long position) {
+				try {
+					if (count == -1) {
+						decoder.finish();
+						parser.end();
+						future.complete(node);
+					} else {
+						buffer.flip();
+						decoder.decode(buffer);
+						buffer.clear();
+						long next = position + count;
+						channel.read(buffer, next, next, this);
+					}
+				} catch (RuntimeException exception) {
+					failed(exception, position);
+				}
+			}
+
+			@Override
+			public void failed(Throwable exception, Long position) {
+				parser.reset();
+				future.completeExceptionally(exception);
+			}
+
+		});
+		return future;
+	}
+
+	/**
+	 * Reads a node from the compact binary format written by {@link #writeBinary(OutputStream)}.
+	 *
+	 * @param stream the {@link InputStream} to read from, which may be consumed beyond the end of the encoded tree
+	 * 
+	 * @return the decoded root node
+	 * 
+	 * @throws IOException if an I/O error occurs or the stream is not in a supported binary format version
+	 */
+	public static XMLNode readBinary(InputStream stream) throws IOException {
+		return XMLBinary.read(stream);
+	}
+
+	/**
+	 * Reads a node from the compact binary format written by {@link #writeBinary(OutputStream)}, starting at the
+	 * position of the buffer. Works with any {@link ByteBuffer}, including a {@link java.nio.MappedByteBuffer} of a
+	 * memory-mapped file. The position is advanced past the encoded tree.
+	 *
+	 * @param buffer the {@link ByteBuffer} to read from
+	 * 
+	 * @return the decoded root node
+	 * 
+	 * @throws IOException if the buffer does not hold a tree in a supported binary format version
+	 */
+	public static XMLNode readBinary(ByteBuffer buffer) throws IOException {
+		return XMLBinary.read(buffer);
 	}
 
 	XMLNode(XMLNode parent) {
 		super(parent);
 		this.tag = null;
+		this.qname = null;
 		this.nodes = new ArrayList<>();
 		this.attributes = new ArrayList<>();
 		this.text = null;
+		this.parsed = null;
+		this.hash = 0;
+		this.tracker = tracked(parent);
+	}
+
+	private XMLNode(XMLNode parent, XMLNode source) {
+		super(parent);
+		this.tag = source.tag;
+		this.qname = null;
+		this.nodes = new ArrayList<>(source.nodes.size());
+		this.attributes = new ArrayList<>(source.attributes.size());
+		this.text = source.text;
+		this.parsed = source.parsed;
+		this.hash = source.hash;
+		this.tracker = tracked(parent);
+		for (XMLAttribute attribute : source.attributes)
+			attributes.add(new XMLAttribute(this, attribute.getName(), attribute.getValue()));
 	}
 
 	/**
@@ -69,6 +296,52 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode setTag(String tag) {
 		this.tag = tag;
+		this.qname = null;
+		modified(XMLJournal.Type.SET_TAG, null, tag);
+		return this;
+	}
+
+	/**
+	 * Retrieves the namespace-qualified name of the node. Names of parsed nodes within the scope of a namespace
+	 * declaration are resolved by the parser, and names of other nodes are resolved against the namespace declarations
+	 * of the node and its ancestors when first requested. Resolved names are kept until the tag or a namespace
+	 * declaration in scope changes. Unprefixed tags are in the default namespace, and tags with an unbound prefix are
+	 * kept whole as local names in no namespace.
+	 *
+	 * @return the interned {@link XMLQName}, or {@code null} if the node has no tag
+	 */
+	public XMLQName getQName() {
+		if (qname == null)
+			qname = XMLQName.resolve(tag, false, this);
+		return qname;
+	}
+
+	/**
+	 * Retrieves the namespace URI of the node.
+	 *
+	 * @return the namespace URI, or {@code null} if the node is in no namespace or has no tag
+	 * 
+	 * @see #getQName()
+	 */
+	public String getNamespace() {
+		XMLQName name = getQName();
+		return name == null ? null : name.getNamespace();
+	}
+
+	/**
+	 * Retrieves the local name of the node, the part of the tag after the namespace prefix.
+	 *
+	 * @return the local name, or {@code null} if the node has no tag
+	 * 
+	 * @see #getQName()
+	 */
+	public String getLocalName() {
+		XMLQName name = getQName();
+		return name == null ? null : name.getLocalName();
+	}
+
+	XMLNode setQName(XMLQName qname) {
+		this.qname = qname;
 		return this;
 	}
 
@@ -187,8 +460,9 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode addNode(String tag) {
 		XMLNode node = new XMLNode(this);
-		node.setTag(tag);
+		node.tag = tag;
 		nodes.add(node);
+		modified(XMLJournal.Type.ADD_NODE, tag, null);
 		return node;
 	}
 
@@ -213,7 +487,9 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @throws IndexOutOfBoundsException if the index is out of range
 	 */
 	public XMLNode removeNode(int index) {
-		return nodes.remove(index);
+		XMLNode node = nodes.remove(index);
+		modified(XMLJournal.Type.REMOVE_NODE, node.tag, null);
+		return node;
 	}
 
 	/**
@@ -224,9 +500,10 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return the removed {@link XMLNode}, or {@code null} if no matching node is found
 	 */
 	public XMLNode removeNode(String tag) {
-		XMLNode node = getNode(tag);
-		nodes.remove(node);
-		return node;
+		for (int i = 0; i < nodes.size(); i++)
+			if (Objects.equals(nodes.get(i).tag, tag))
+				return removeNode(i);
+		return null;
 	}
 
 	/**
@@ -237,7 +514,13 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return a reference to this object
 	 */
 	public XMLNode removeNodes(Predicate<XMLNode> predicate) {
-		nodes.removeIf(predicate);
+		if (tracker == null) {
+			if (nodes.removeIf(predicate))
+				modified(XMLJournal.Type.REMOVE_NODE, null, null);
+		} else
+			for (int i = nodes.size() - 1; i >= 0; i--)
+				if (predicate.test(nodes.get(i)))
+					removeNode(i);
 		return this;
 	}
 
@@ -261,6 +544,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode sortNodes(Comparator<XMLNode> comparator) {
 		Collections.sort(nodes, comparator);
+		modified(XMLJournal.Type.SORT_NODES, null, null);
 		return this;
 	}
 
@@ -271,6 +555,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode sortNodes() {
 		Collections.sort(nodes);
+		modified(XMLJournal.Type.SORT_NODES, null, null);
 		return this;
 	}
 
@@ -281,6 +566,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode clearNodes() {
 		nodes.clear();
+		modified(XMLJournal.Type.CLEAR_NODES, null, null);
 		return this;
 	}
 
@@ -407,12 +693,25 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return the newly created {@link XMLAttribute}
 	 */
 	public XMLAttribute addAttribute(String name) {
-		XMLAttribute attribute = new XMLAttribute(this);
-		attribute.setName(name);
+		if (containsAttributeName(name))
+			throw new IllegalArgumentException(String.format("Attribute with name \"%s\" already exists", name));
+		XMLAttribute attribute = new XMLAttribute(this, name, null);
 		attributes.add(attribute);
+		modified(XMLJournal.Type.ADD_ATTRIBUTE, name, null);
 		return attribute;
 	}
 
+	/**
+	 * Appends an attribute without checking for duplicate names. Only used when the source is known to be valid.
+	 *
+	 * @param name  the attribute name
+	 * @param value the attribute value
+	 */
+	void appendAttribute(String name, String value) {
+		attributes.add(new XMLAttribute(this, name, value));
+		modified(XMLJournal.Type.ADD_ATTRIBUTE, name, value);
+	}
+
 	/**
 	 * Retrieves an existing attribute with the specified name or creates a new one if it doesn't exist.
 	 *
@@ -434,7 +733,9 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @throws IndexOutOfBoundsException if the index is out of range
 	 */
 	public XMLAttribute removeAttribute(int index) {
-		return attributes.remove(index);
+		XMLAttribute attribute = attributes.remove(index);
+		modified(XMLJournal.Type.REMOVE_ATTRIBUTE, attribute.getName(), null);
+		return attribute;
 	}
 
 	/**
@@ -445,9 +746,10 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return the removed {@link XMLAttribute}, or {@code null} if no matching attribute is found
 	 */
 	public XMLAttribute removeAttribute(String name) {
-		XMLAttribute attribute = getAttribute(name);
-		attributes.remove(attribute);
-		return attribute;
+		for (int i = 0; i < attributes.size(); i++)
+			if (Objects.equals(attributes.get(i).getName(), name))
+				return removeAttribute(i);
+		return null;
 	}
 
 	/**
@@ -458,7 +760,13 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return a reference to this object
 	 */
 	public XMLNode removeAttributes(Predicate<XMLAttribute> predicate) {
-		attributes.removeIf(predicate);
+		if (tracker == null) {
+			if (attributes.removeIf(predicate))
+				modified(XMLJournal.Type.REMOVE_ATTRIBUTE, null, null);
+		} else
+			for (int i = attributes.size() - 1; i >= 0; i--)
+				if (predicate.test(attributes.get(i)))
+					removeAttribute(i);
 		return this;
 	}
 
@@ -471,6 +779,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode sortAttributes(Comparator<XMLAttribute> comparator) {
 		Collections.sort(attributes, comparator);
+		modified(XMLJournal.Type.SORT_ATTRIBUTES, null, null);
 		return this;
 	}
 
@@ -481,6 +790,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode sortAttributes() {
 		Collections.sort(attributes);
+		modified(XMLJournal.Type.SORT_ATTRIBUTES, null, null);
 		return this;
 	}
 
@@ -491,6 +801,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode clearAttributes() {
 		attributes.clear();
+		modified(XMLJournal.Type.CLEAR_ATTRIBUTES, null, null);
 		return this;
 	}
 
@@ -524,11 +835,14 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	}
 
 	/**
-	 * Retrieves the text content of the node.
+	 * Retrieves the text content of the node. Text set through a typed setter is converted to a string when first
+	 * requested.
 	 *
 	 * @return the text content of this node
 	 */
 	public String getText() {
+		if (text == null && parsed != null)
+			text = XMLValue.format(parsed);
 		return text;
 	}
 
@@ -538,7 +852,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return an {@link Optional} containing the text content of this node
 	 */
 	public Optional<String> optText() {
-		return Optional.ofNullable(text);
+		return Optional.ofNullable(getText());
 	}
 
 	/**
@@ -550,6 +864,177 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 */
 	public XMLNode setText(String text) {
 		this.text = text;
+		this.parsed = null;
+		modified(XMLJournal.Type.SET_TEXT, null, text);
+		return this;
+	}
+
+	/**
+	 * Parses the text content as a decimal {@code int}, ignoring surrounding whitespace. The parsed value is cached
+	 * until the text changes.
+	 *
+	 * @return the text content as an {@code int}
+	 * 
+	 * @throws NumberFormatException if the text is {@code null} or not a decimal {@code int}
+	 */
+	public int getInt() {
+		if (!(parsed instanceof Integer))
+			parsed = XMLValue.parseInt(getText());
+		return (Integer) parsed;
+	}
+
+	/**
+	 * Parses the text content as a decimal {@code long}, ignoring surrounding whitespace. The parsed value is cached
+	 * until the text changes.
+	 *
+	 * @return the text content as a {@code long}
+	 * 
+	 * @throws NumberFormatException if the text is {@code null} or not a decimal {@code long}
+	 */
+	public long getLong() {
+		if (!(parsed instanceof Long))
+			parsed = XMLValue.parseLong(getText());
+		return (Long) parsed;
+	}
+
+	/**
+	 * Parses the text content as a {@code double} in any format accepted by {@link Double#parseDouble(String)}. The
+	 * parsed value is cached until the text changes.
+	 *
+	 * @return the text content as a {@code double}
+	 * 
+	 * @throws NumberFormatException if the text is {@code null} or not a {@code double}
+	 */
+	public double getDouble() {
+		if (!(parsed instanceof Double))
+			parsed = XMLValue.parseDouble(getText());
+		return (Double) parsed;
+	}
+
+	/**
+	 * Parses the text content as a boolean, accepting {@code true}, {@code false}, {@code 1} and {@code 0} surrounded
+	 * by whitespace. The parsed value is cached until the text changes.
+	 *
+	 * @return the text content as a {@code boolean}
+	 * 
+	 * @throws IllegalArgumentException if the text is {@code null} or not a boolean
+	 */
+	public boolean getBoolean() {
+		if (!(parsed instanceof Boolean))
+			parsed = XMLValue.parseBoolean(getText());
+		return (Boolean) parsed;
+	}
+
+	/**
+	 * Parses the text content as the name of an enum constant, ignoring surrounding whitespace. The parsed constant is
+	 * cached until the text changes.
+	 *
+	 * @param <E>  the enum type
+	 * @param type the class of the enum type
+	 * 
+	 * @return the enum constant named by the text
+	 * 
+	 * @throws IllegalArgumentException if the text is {@code null} or not the name of a constant of the type
+	 */
+	public <E extends Enum<E>> E getEnum(Class<E> type) {
+		if (!type.isInstance(parsed))
+			parsed = XMLValue.parseEnum(type, getText());
+		return type.cast(parsed);
+	}
+
+	/**
+	 * Sets the text content to an {@code int}. The value is only converted to a string when the text is requested or
+	 * serialized, and {@link #getInt()} returns it without parsing.
+	 *
+	 * @param value the new text content
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLNode setInt(int value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the text content to a {@code long}. The value is only converted to a string when the text is requested or
+	 * serialized, and {@link #getLong()} returns it without parsing.
+	 *
+	 * @param value the new text content
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLNode setLong(long value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the text content to a {@code double}. The value is only converted to a string when the text is requested or
+	 * serialized, and {@link #getDouble()} returns it without parsing.
+	 *
+	 * @param value the new text content
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLNode setDouble(double value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the text content to a boolean. The value is only converted to a string when the text is requested or
+	 * serialized, and {@link #getBoolean()} returns it without parsing.
+	 *
+	 * @param value the new text content
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLNode setBoolean(boolean value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Sets the text content to the name of an enum constant. The name is only looked up when the text is requested or
+	 * serialized, and {@link #getEnum(Class)} returns the constant without parsing.
+	 *
+	 * @param value the new text content, or {@code null} to clear it
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLNode setEnum(Enum<?> value) {
+		return setParsed(value);
+	}
+
+	/**
+	 * Retrieves the typed value of the text content if it was set through a typed setter and not yet converted to a
+	 * string.
+	 *
+	 * @return the typed value, or {@code null} if the text content is a string
+	 */
+	Object typed() {
+		return text == null ? parsed : null;
+	}
+
+	/**
+	 * Retrieves the text content as a string without converting a typed value.
+	 *
+	 * @return the text content, or {@code null} if there is none or it was set through a typed setter and not yet
+	 *         converted
+	 */
+	String text() {
+		return text;
+	}
+
+	/**
+	 * Retrieves the typed value cached for the text content or set through a typed setter.
+	 *
+	 * @return the typed value, or {@code null} if there is none
+	 */
+	Object parsed() {
+		return parsed;
+	}
+
+	private XMLNode setParsed(Object parsed) {
+		this.text = null;
+		this.parsed = parsed;
+		modified(XMLJournal.Type.SET_TEXT, null, tracker == null ? null : getText());
 		return this;
 	}
 
@@ -559,7 +1044,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return a new {@link StringView} for the text content of this node
 	 */
 	public StringView viewText() {
-		return new StringView(text);
+		return new StringView(getText());
 	}
 
 	/**
@@ -568,6 +1053,7 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return {@code true} if text content exists and is not just whitespace, {@code false} otherwise
 	 */
 	public boolean hasText() {
+		String text = getText();
 		return Objects.nonNull(text) && !text.trim().isEmpty();
 	}
 
@@ -580,6 +1066,273 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 		return !hasParent();
 	}
 
+	/**
+	 * Computes structural statistics and an estimated retained heap size of this node and its descendants in a single
+	 * iterative pass.
+	 *
+	 * @return the {@link XMLStatistics} of this subtree
+	 */
+	public XMLStatistics statistics() {
+		return XMLStatistics.of(this);
+	}
+
+	/**
+	 * Starts tracking modifications of this node and its descendants, including nodes added later. Modifications are
+	 * recorded in the returned journal and mark the modified node and its ancestors as dirty, so that serializing this
+	 * node again only renders dirty subtrees and copies the rest from the previous output. Tracking started on a
+	 * descendant is replaced.
+	 *
+	 * @return the journal recording the modifications, or the current one if tracking was already started on this node
+	 * 
+	 * @throws IllegalStateException if tracking was started on an ancestor of this node
+	 */
+	public XMLJournal startTracking() {
+		if (tracker != null) {
+			if (tracker.journal.getRoot() == this)
+				return tracker.journal;
+			throw new IllegalStateException("Node is already tracked by an ancestor");
+		}
+		XMLJournal journal = new XMLJournal(this);
+		track(journal);
+		return journal;
+	}
+
+	/**
+	 * Stops tracking started on this node, releasing the journal and the cached output. Has no effect if tracking was
+	 * not started on this node.
+	 *
+	 * @return a reference to this object
+	 */
+	public XMLNode stopTracking() {
+		if (tracker != null && tracker.journal.getRoot() == this)
+			track(null);
+		return this;
+	}
+
+	/**
+	 * Retrieves the journal recording the modifications of this node.
+	 *
+	 * @return the journal of the tracked tree this node belongs to, or {@code null} if the node is not tracked
+	 */
+	public XMLJournal getJournal() {
+		return tracker == null ? null : tracker.journal;
+	}
+
+	/**
+	 * Checks if this node or one of its descendants was modified since the tracked root was last serialized. Nodes
+	 * that are not tracked are always dirty.
+	 *
+	 * @return {@code true} if the node has to be rendered again, {@code false} if its previous output can be reused
+	 */
+	public boolean isDirty() {
+		return tracker == null || tracker.dirty;
+	}
+
+	private void track(XMLJournal journal) {
+		Deque<XMLNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			XMLNode node = stack.pop();
+			node.tracker = journal == null ? null : new XMLJournal.Tracker(journal);
+			for (XMLNode child : node.nodes)
+				stack.push(child);
+		}
+	}
+
+	/**
+	 * Creates a deep copy of this node and its descendants. The copy has no parent, its child and attribute lists are
+	 * presized, and strings are shared with the original since they are immutable. The tree is copied iteratively, so
+	 * arbitrarily deep trees are supported. Qualified names are not copied but resolved again in the scope of the copy.
+	 *
+	 * @return a new root node equal to this node
+	 */
+	public XMLNode deepCopy() {
+		XMLNode root = new XMLNode(null, this);
+		copyNodes(this, root);
+		return root;
+	}
+
+	/**
+	 * Inserts a deep copy of a node as a child at the specified index.
+	 *
+	 * @param index  the index to insert at
+	 * @param source the node to copy
+	 * 
+	 * @return the inserted copy
+	 * 
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	XMLNode insertNode(int index, XMLNode source) {
+		XMLNode copy = new XMLNode(this, source);
+		copyNodes(source, copy);
+		nodes.add(index, copy);
+		modified(XMLJournal.Type.ADD_NODE, copy.tag, null);
+		return copy;
+	}
+
+	/**
+	 * Moves a child node to another index, shifting the nodes in between.
+	 *
+	 * @param from the current index of the node
+	 * @param to   the new index of the node
+	 * 
+	 * @throws IndexOutOfBoundsException if either index is out of range
+	 */
+	void moveNode(int from, int to) {
+		XMLNode node = nodes.remove(from);
+		nodes.add(to, node);
+		modified(XMLJournal.Type.MOVE_NODE, node.tag, null);
+	}
+
+	private static void copyNodes(XMLNode source, XMLNode target) {
+		Deque<XMLNode> sources = new ArrayDeque<>();
+		Deque<XMLNode> targets = new ArrayDeque<>();
+		sources.push(source);
+		targets.push(target);
+		while (!sources.isEmpty()) {
+			XMLNode parent = sources.pop();
+			XMLNode parentCopy = targets.pop();
+			for (XMLNode node : parent.nodes) {
+				XMLNode copy = new XMLNode(parentCopy, node);
+				parentCopy.nodes.add(copy);
+				if (!node.nodes.isEmpty()) {
+					sources.push(node);
+					targets.push(copy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records a modification of this node in its journal, if tracked, and invalidates the cached hash codes and clean
+	 * flags of this node and its ancestors. Ancestors are only visited while they hold a cached hash code or are clean,
+	 * since a node without either has no ancestor with one.
+	 *
+	 * @param type  the type of the modification
+	 * @param name  the affected child tag or attribute name, if any
+	 * @param value the new value, if any
+	 */
+	void modified(XMLJournal.Type type, String name, String value) {
+		if (tracker != null)
+			tracker.journal.record(type, this, name, value);
+		if (declares(type, name, value))
+			unresolve();
+		XMLNode node = this;
+		while (node != null && (node.hash != 0 || node.tracker != null && !node.tracker.dirty)) {
+			node.hash = 0;
+			if (node.tracker != null)
+				node.tracker.dirty = true;
+			node = node.getParent();
+		}
+	}
+
+	private static boolean declares(XMLJournal.Type type, String name, String value) {
+		switch (type) {
+			case ADD_ATTRIBUTE:
+			case SET_ATTRIBUTE:
+			case REMOVE_ATTRIBUTE:
+				return name == null || XMLQName.isDeclaration(name);
+			case RENAME_ATTRIBUTE:
+				return XMLQName.isDeclaration(name) || XMLQName.isDeclaration(value);
+			case CLEAR_ATTRIBUTES:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Discards the resolved names of this node, its attributes and its descendants after a namespace declaration
+	 * changed.
+	 */
+	private void unresolve() {
+		Deque<XMLNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			XMLNode node = stack.pop();
+			node.qname = null;
+			for (XMLAttribute attribute : node.attributes)
+				attribute.setQName(null);
+			for (XMLNode child : node.nodes)
+				stack.push(child);
+		}
+	}
+
+	XMLJournal.Tracker tracker() {
+		return tracker;
+	}
+
+	private static XMLJournal.Tracker tracked(XMLNode parent) {
+		return parent == null || parent.tracker == null ? null : new XMLJournal.Tracker(parent.tracker.journal);
+	}
+
+	/**
+	 * Computes a hash code from the tag, text, attributes and child nodes of this node, consistent with
+	 * {@link #equals(Object)}. Hash codes are computed iteratively and cached per node until the node or one of its
+	 * descendants is modified.
+	 *
+	 * @return the structural hash code of this node
+	 */
+	@Override
+	public int hashCode() {
+		if (hash != 0)
+			return hash;
+		Deque<XMLNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			XMLNode node = stack.peek();
+			boolean ready = true;
+			for (XMLNode child : node.nodes)
+				if (child.hash == 0) {
+					stack.push(child);
+					ready = false;
+				}
+			if (ready) {
+				stack.pop();
+				int result = 31 * (31 * Objects.hashCode(node.tag) + Objects.hashCode(node.getText())) + node.attributes.hashCode();
+				for (XMLNode child : node.nodes)
+					result = 31 * result + child.hash;
+				node.hash = result == 0 ? 1 : result;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Checks whether another object is an {@link XMLNode} with the same tag, text, attributes in the same order and
+	 * equal child nodes in the same order. Parents are not compared. Trees are compared iteratively, and the cached hash
+	 * codes reject most unequal trees without visiting them.
+	 *
+	 * @param object the object to compare with
+	 * 
+	 * @return {@code true} if the object is a structurally equal node, {@code false} otherwise
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (this == object)
+			return true;
+		if (!(object instanceof XMLNode) || hashCode() != object.hashCode())
+			return false;
+		Deque<XMLNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		stack.push((XMLNode) object);
+		while (!stack.isEmpty()) {
+			XMLNode other = stack.pop();
+			XMLNode node = stack.pop();
+			if (node == other)
+				continue;
+			if (node.hashCode() != other.hashCode() || !Objects.equals(node.tag, other.tag)
+					|| !Objects.equals(node.getText(), other.getText()) || !node.attributes.equals(other.attributes)
+					|| node.nodes.size() != other.nodes.size())
+				return false;
+			for (int i = 0; i < node.nodes.size(); i++) {
+				stack.push(node.nodes.get(i));
+				stack.push(other.nodes.get(i));
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public int compareTo(XMLNode other) {
 		if (tag == other.tag)
@@ -610,44 +1363,64 @@ public class XMLNode extends XMLObject implements Comparable<XMLNode> {
 	 * @return the XML string representation of the node
 	 */
 	public String toXMLString(char indent) {
-		return toXMLString(indent, 0);
-	}
-
-	private String toXMLString(char indent, int level) {
-		String indentString = indentString(indent, level);
 		StringBuilder builder = new StringBuilder();
-		builder.append(indentString).append("<").append(tag);
-		String nodeString = null;
-		String textString = null;
-		if (hasAttributes())
-			builder.append(" ").append(streamAttributes().map(XMLAttribute::toXMLString).collect(Collectors.joining(" ")));
-		if (hasNodes())
-			nodeString = streamNodes().map(node -> node.toXMLString(indent, level + 1)).collect(Collectors.joining("\n"));
-		else if (hasText())
-			textString = escapeString(text);
-		if (Objects.isNull(nodeString) && Objects.isNull(textString))
-			builder.append("/>");
-		else {
-			builder.append(">");
-			if (Objects.nonNull(nodeString))
-				builder.append("\n").append(nodeString).append("\n").append(indentString);
-			else if (Objects.nonNull(textString))
-				builder.append(textString);
-			builder.append("</").append(tag).append(">");
+		XMLWriter writer = new XMLWriter(indent);
+		try {
+			writer.write(this, builder);
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
 		}
+		writer.report(builder.length(), -1L);
 		return builder.toString();
 	}
 
-	private String indentString(char indent, int level) {
-		StringBuilder builder = new StringBuilder();
-		for (int i = 0; i < level; i++)
-			builder.append(indent);
-		return builder.toString();
+	/**
+	 * Writes the node as UTF-8 encoded XML with default tab indentation to a channel.
+	 *
+	 * @param channel the {@link WritableByteChannel} to write to, in blocking mode
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		write(channel, '\t', StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the node as XML with specified indentation and encoding to a channel. Characters are encoded in fixed-size
+	 * chunks, so the whole document is never held in memory.
+	 *
+	 * @param channel the {@link WritableByteChannel} to write to, in blocking mode
+	 * @param indent  the character to use for indentation
+	 * @param charset the {@link Charset} to encode with
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(WritableByteChannel channel, char indent, Charset charset) throws IOException {
+		XMLEncoder encoder = new XMLEncoder(channel, charset);
+		XMLWriter writer = new XMLWriter(indent);
+		writer.write(this, encoder);
+		encoder.finish();
+		writer.report(encoder.getCharacters(), encoder.getBytes());
+	}
+
+	/**
+	 * Writes the node and its descendants in a compact, versioned binary format that loads considerably faster than
+	 * parsing XML text. Tags and attribute names are stored once in a string table and lengths are varint encoded.
+	 *
+	 * @param stream the {@link OutputStream} to write to
+	 * 
+	 * @throws IOException if an I/O error occurs
+	 * 
+	 * @see #readBinary(InputStream)
+	 * @see #readBinary(ByteBuffer)
+	 */
+	public void writeBinary(OutputStream stream) throws IOException {
+		XMLBinary.write(this, stream);
 	}
 
 	@Override
 	public String toString() {
-		return String.format("XMLNode [tag=%s, attributes=%s, nodes=%s, text=%s]", tag, attributes, nodes, text);
+		return String.format("XMLNode [tag=%s, attributes=%s, nodes=%s, text=%s]", tag, attributes, nodes, getText());
 	}
 
 }
@@ -0,0 +1,99 @@
+package com.kaba4cow.xmltree;
+
+/**
+ * Measurements of a single parsed document.
+ * 
+ * @see XMLMetrics
+ */
+public final class XMLParseReport {
+
+	private final long characters;
+	private final long bytes;
+	private final int elements;
+	private final int attributes;
+	private final int maxDepth;
+	private final long tokenizingNanos;
+	private final long buildingNanos;
+
+	XMLParseReport(long characters, long bytes, int elements, int attributes, int maxDepth, long tokenizingNanos,
+			long buildingNanos) {
+		this.characters = characters;
+		this.bytes = bytes;
+		this.elements = elements;
+		this.attributes = attributes;
+		this.maxDepth = maxDepth;
+		this.tokenizingNanos = tokenizingNanos;
+		this.buildingNanos = buildingNanos;
+	}
+
+	/**
+	 * Retrieves the number of characters consumed.
+	 *
+	 * @return the number of characters
+	 */
+	public long getCharacters() {
+		return characters;
+	}
+
+	/**
+	 * Retrieves the number of bytes consumed.
+	 *
+	 * @return the number of bytes, or {@code -1} if the document was parsed from characters
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Retrieves the number of elements created.
+	 *
+	 * @return the number of elements
+	 */
+	public int getElements() {
+		return elements;
+	}
+
+	/**
+	 * Retrieves the number of attributes created.
+	 *
+	 * @return the number of attributes
+	 */
+	public int getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Retrieves the maximum element depth, where the root element has depth {@code 1}.
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Retrieves the time spent tokenizing the input, excluding the time spent creating elements and attributes.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getTokenizingNanos() {
+		return tokenizingNanos;
+	}
+
+	/**
+	 * Retrieves the time spent creating elements and attributes.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getBuildingNanos() {
+		return buildingNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"XMLParseReport [characters=%s, bytes=%s, elements=%s, attributes=%s, maxDepth=%s, tokenizingNanos=%s, buildingNanos=%s]",
+				characters, bytes, elements, attributes, maxDepth, tokenizingNanos, buildingNanos);
+	}
+
+}
@@ -1,143 +1,725 @@
 package com.kaba4cow.xmltree;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Stack;
+import java.util.function.Consumer;
 
+/**
+ * Parses XML source directly into {@link XMLNode} trees.
+ * <p>
+ * The tokenizer is incremental: characters can be supplied in arbitrary chunks through {@link #feed(char[], int, int)},
+ * and its state (inside a tag, an attribute value, a comment or a processing instruction) is kept across chunk
+ * boundaries. A parser keeps its text builder and node stack between documents, so one instance can parse any number
+ * of documents without reallocating them. Tags are scanned as their characters arrive: the bounds of the element name
+ * and of every attribute name and value are recorded in the retained builder, so the only strings created per tag are
+ * the attribute values. Values are quoted with double or single quotes, which may contain whitespace and the other
+ * quote, or unquoted up to the next whitespace. An attribute repeated within a tag keeps its first position and its
+ * last value. Tag and attribute names are canonicalized through a symbol table looked up directly from the builder, so
+ * documents parsed by the same parser share a single instance of every repeated name without allocating it again.
+ * Instances are not thread-safe; use {@link #local()} to obtain the parser owned by the current thread.
+ * <p>
+ * Namespace prefixes are resolved once per element against a scoped prefix table, which holds the declarations of the
+ * open elements, and the resolved {@link XMLQName}s of tags and attributes are cached per parser. Elements with no
+ * declaration in scope are not resolved at all; their names are resolved lazily if they are ever requested.
+ * <p>
+ * Instead of building nodes, a parser can report elements to an {@link XMLHandler}, so no tree is built at all. In
+ * either mode, a document can be validated against an {@link XMLSchema} as it is tokenized; every element is validated
+ * before it is reported.
+ */
 class XMLParser {
 
-	private XMLParserNode root;
+	private static final int RETAINED_CAPACITY = 1 << 16;
+	private static final int SYMBOL_CAPACITY = 1 << 12;
+
+	private static final int TEXT = 0;
+	private static final int TAG = 1;
+	private static final int QUOTE = 2;
+	private static final int INSTRUCTION = 3;
+	private static final int COMMENT = 4;
+
+	private static final int NAME = 0;
+	private static final int SPACE = 1;
+	private static final int ATTRIBUTE = 2;
+	private static final int ASSIGN = 3;
+	private static final int EQUALS = 4;
+	private static final int VALUE = 5;
+
+	private static final int LINEAR_ATTRIBUTES = 8;
+
+	private static final ThreadLocal<XMLParser> LOCAL = ThreadLocal.withInitial(XMLParser::new);
+
+	private final Deque<XMLNode> stack;
+	private final StringBuilder builder;
+	private final String[] symbols;
+	private int symbolCount;
+	private final Map<String, Map<String, XMLQName>> names;
+	private int nameCount;
+	private String[] prefixes;
+	private String[] namespaces;
+	private int bindings;
+	private int[] scopes;
+	private int scan;
+	private int nameStart;
+	private int nameEnd;
+	private int[] marks;
+	private int markCount;
+	private String[] tokens;
+	private int tokenCount;
+	private final Map<String, Integer> positions;
+	private Consumer<XMLNode> listener;
+	private XMLNode output;
+	private XMLHandler handler;
+	private int depth;
+	private XMLValidator validator;
+	private boolean rooted;
+	private int state;
+	private int tagStart;
+	private int matched;
+	private char quote;
+	private boolean busy;
+	private XMLMetrics metrics;
+	private boolean measured;
+	private long characters;
+	private long bytes;
+	private int elements;
+	private int attributes;
+	private int maxDepth;
+	private long processingNanos;
+	private long buildingNanos;
 
 	public XMLParser() {
-		this.root = null;
+		this.stack = new ArrayDeque<>();
+		this.builder = new StringBuilder();
+		this.symbols = new String[SYMBOL_CAPACITY << 1];
+		this.symbolCount = 0;
+		this.names = new HashMap<>();
+		this.nameCount = 0;
+		this.prefixes = new String[8];
+		this.namespaces = new String[8];
+		this.scopes = new int[16];
+		this.marks = new int[16];
+		this.tokens = new String[16];
+		this.positions = new HashMap<>();
+		this.listener = null;
+		reset();
 	}
 
-	public void to(XMLNode output) {
-		root.copy(output);
+	/**
+	 * Retrieves the parser owned by the current thread, or a new one if that parser is already in use further up the
+	 * call stack.
+	 *
+	 * @return a parser that is free to use on the current thread
+	 */
+	public static XMLParser local() {
+		XMLParser parser = LOCAL.get();
+		return parser.busy ? new XMLParser() : parser;
 	}
 
-	public XMLParser parse(String input) {
-		Stack<XMLParserNode> stack = new Stack<>();
-		StringBuilder builder = new StringBuilder();
-		boolean inside = false;
-		char[] chars = input.toCharArray();
-		for (int i = 0; i < chars.length; i++) {
-			char c = chars[i];
-			if (c == '<') {
-				if (builder.length() > 0 && !stack.isEmpty()) {
-					stack.peek().setText(builder.toString().trim());
-					builder.setLength(0);
-				}
-				inside = true;
-				if (i < chars.length - 1 && chars[i + 1] == '?') {
-					i = skipUntil(chars, i, "?>");
-					inside = false;
-				} else if (i < chars.length - 3 && chars[i + 1] == '!' && chars[i + 2] == '-' && chars[i + 3] == '-') {
-					i = skipUntil(chars, i, "-->");
-					inside = false;
-				}
-			} else if (c == '>') {
-				if (inside) {
-					String tag = builder.toString().trim();
-					builder.setLength(0);
-					inside = false;
-					if (tag.startsWith("/"))
-						stack.pop();
-					else {
-						boolean selfClosing = tag.endsWith("/");
-						if (selfClosing)
-							tag = tag.substring(0, tag.length() - 1).trim();
-						XMLParserNode node = parseTag(tag);
-						if (stack.isEmpty())
-							root = node;
-						else
-							stack.peek().addNode(node);
-						if (!selfClosing)
-							stack.push(node);
-					}
+	/**
+	 * Parses an XML source string into the given node, which becomes the root element of the document.
+	 *
+	 * @param input  the XML source string
+	 * @param output the node to populate
+	 *
+	 * @throws IllegalArgumentException if the source contains an unmatched closing tag
+	 */
+	public void parse(String input, XMLNode output) {
+		begin(output);
+		parse(input);
+	}
+
+	/**
+	 * Parses an XML source string as the whole document started with {@link #begin(XMLNode)} or
+	 * {@link #begin(XMLHandler)}.
+	 *
+	 * @param input the XML source string
+	 *
+	 * @throws IllegalArgumentException if the source contains an unmatched closing tag or does not match the schema
+	 *                                  of the document
+	 */
+	public void parse(String input) {
+		try {
+			long start = startTimer();
+			for (int i = 0; i < input.length(); i++)
+				accept(input.charAt(i));
+			characters = input.length();
+			processingNanos = stopTimer(start);
+			complete();
+		} finally {
+			reset();
+		}
+	}
+
+	/**
+	 * Sets the listener notified with every element as soon as its closing tag has been parsed.
+	 *
+	 * @param listener the listener, or {@code null} to disable notifications
+	 */
+	public void setListener(Consumer<XMLNode> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Replaces the metrics that receive the report of the current document.
+	 *
+	 * @param metrics the metrics to report to
+	 */
+	public void setMetrics(XMLMetrics metrics) {
+		this.metrics = metrics;
+		this.measured = metrics != XMLMetrics.NONE;
+	}
+
+	/**
+	 * Starts parsing a document whose characters are supplied through {@link #feed(char[], int, int)}. The document is
+	 * reported to the metrics installed through {@link XMLNode#setMetrics(XMLMetrics)}.
+	 *
+	 * @param output the node to populate with the root element of the document
+	 */
+	public void begin(XMLNode output) {
+		this.output = output;
+		this.busy = true;
+		setMetrics(XMLNode.getMetrics());
+	}
+
+	/**
+	 * Starts parsing a document whose characters are supplied through {@link #feed(char[], int, int)}, reporting its
+	 * elements to a handler instead of building nodes.
+	 *
+	 * @param handler the handler to report to
+	 */
+	public void begin(XMLHandler handler) {
+		this.handler = handler;
+		this.busy = true;
+		setMetrics(XMLNode.getMetrics());
+	}
+
+	/**
+	 * Validates the current document against a schema while it is tokenized. Must be called before the first
+	 * characters of the document are supplied.
+	 *
+	 * @param schema the schema, or {@code null} to disable validation
+	 */
+	public void validate(XMLSchema schema) {
+		this.validator = schema == null ? null : new XMLValidator(schema);
+	}
+
+	/**
+	 * Records bytes that have been decoded into the characters of the current document.
+	 *
+	 * @param count the number of bytes
+	 */
+	public void consumed(int count) {
+		bytes = Math.max(bytes, 0L) + count;
+	}
+
+	/**
+	 * Tokenizes the next characters of the document started with {@link #begin(XMLNode)}.
+	 *
+	 * @param chars  the array holding the characters
+	 * @param offset the index of the first character to read
+	 * @param count  the number of characters to read
+	 *
+	 * @throws IllegalArgumentException if the characters contain an unmatched closing tag
+	 */
+	public void feed(char[] chars, int offset, int count) {
+		long start = startTimer();
+		for (int i = offset; i < offset + count; i++)
+			accept(chars[i]);
+		characters += count;
+		processingNanos += stopTimer(start);
+	}
+
+	/**
+	 * Completes the document started with {@link #begin(XMLNode)}. Unclosed elements are kept as parsed so far, unless
+	 * the document is validated.
+	 *
+	 * @throws IllegalArgumentException if the document does not match its schema
+	 */
+	public void end() {
+		try {
+			complete();
+		} finally {
+			reset();
+		}
+	}
+
+	/**
+	 * Discards the current document and releases an oversized text builder, leaving the parser ready for the next
+	 * document.
+	 */
+	public void reset() {
+		stack.clear();
+		bindings = 0;
+		builder.setLength(0);
+		if (builder.capacity() > RETAINED_CAPACITY)
+			builder.trimToSize();
+		output = null;
+		handler = null;
+		depth = 0;
+		validator = null;
+		rooted = false;
+		state = TEXT;
+		tagStart = 0;
+		matched = 0;
+		quote = 0;
+		busy = false;
+		metrics = XMLMetrics.NONE;
+		measured = false;
+		characters = 0L;
+		bytes = -1L;
+		elements = 0;
+		attributes = 0;
+		maxDepth = 0;
+		processingNanos = 0L;
+		buildingNanos = 0L;
+	}
+
+	private void accept(char c) {
+		switch (state) {
+			case INSTRUCTION:
+				skip(c, '?', 1);
+				break;
+			case COMMENT:
+				skip(c, '-', 2);
+				break;
+			case QUOTE:
+				if (c == quote) {
+					mark(builder.length());
+					scan = SPACE;
+					state = TAG;
 				}
-			} else
 				builder.append(c);
+				break;
+			default:
+				if (c == '<')
+					openTag();
+				else if (state == TEXT) {
+					if (c != '>')
+						builder.append(c);
+				} else if (c == '>')
+					closeTag();
+				else {
+					builder.append(c);
+					scan(c, builder.length() - 1);
+					if (state == TAG)
+						detectMarkup();
+				}
 		}
-		return this;
 	}
 
-	private int skipUntil(char[] chars, int start, String end) {
-		for (int i = start; i < chars.length - end.length() + 1; i++) {
-			boolean match = true;
-			for (int j = 0; j < end.length(); j++)
-				if (chars[i + j] != end.charAt(j)) {
-					match = false;
-					break;
+	private void openTag() {
+		if (builder.length() > 0 && (handler == null ? !stack.isEmpty() : depth > 0)) {
+			String text = builder.toString().trim();
+			if (validator != null)
+				validator.text(text);
+			if (handler == null)
+				stack.peek().setText(text);
+			else
+				handler.text(text);
+			builder.setLength(0);
+		}
+		tagStart = builder.length();
+		state = TAG;
+		scan = NAME;
+		nameStart = -1;
+		nameEnd = -1;
+		markCount = 0;
+	}
+
+	/**
+	 * Advances the scan of a start tag by a character appended to the builder, recording the bounds of the element name
+	 * and of the attribute names and values.
+	 *
+	 * @param c     the character
+	 * @param index the index of the character in the builder
+	 */
+	private void scan(char c, int index) {
+		boolean space = c <= ' ';
+		switch (scan) {
+			case NAME:
+				if (nameStart == -1) {
+					if (!space)
+						nameStart = index;
+				} else if (space || c == '/') {
+					nameEnd = index;
+					scan = SPACE;
+				}
+				break;
+			case SPACE:
+				if (!space && c != '/')
+					attribute(index);
+				break;
+			case ATTRIBUTE:
+				if (c == '=') {
+					marks[markCount + 1] = index;
+					scan = EQUALS;
+				} else if (space) {
+					marks[markCount + 1] = index;
+					scan = ASSIGN;
+				} else if (c == '/')
+					scan = SPACE;
+				break;
+			case ASSIGN:
+				if (c == '=')
+					scan = EQUALS;
+				else if (c == '/')
+					scan = SPACE;
+				else if (!space)
+					attribute(index);
+				break;
+			case EQUALS:
+				if (c == '"' || c == '\'') {
+					marks[markCount + 2] = index + 1;
+					quote = c;
+					state = QUOTE;
+				} else if (!space) {
+					marks[markCount + 2] = index;
+					scan = VALUE;
 				}
-			if (match)
-				return i + end.length() - 1;
-		}
-		return chars.length - 1;
-	}
-
-	private XMLParserNode parseTag(String tag) {
-		String[] parts = tag.split("\\s+", 2);
-		XMLParserNode node = new XMLParserNode().setTag(parts[0]);
-		if (parts.length > 1) {
-			String[] attributes = parts[1].split("\\s+");
-			for (String attribute : attributes) {
-				int index = attribute.indexOf('=');
-				if (index != -1) {
-					String name = attribute.substring(0, index);
-					String value = attribute.substring(index + 1).replace("\"", "");
-					node.addAttribute(name, value);
+				break;
+			case VALUE:
+				if (space) {
+					mark(index);
+					scan = SPACE;
 				}
+				break;
+		}
+	}
+
+	private void attribute(int index) {
+		if (markCount + 4 > marks.length)
+			marks = Arrays.copyOf(marks, marks.length << 1);
+		marks[markCount] = index;
+		scan = ATTRIBUTE;
+	}
+
+	/**
+	 * Completes the attribute being scanned with the end of its value.
+	 *
+	 * @param end the index following the last character of the value
+	 */
+	private void mark(int end) {
+		marks[markCount + 3] = end;
+		markCount += 4;
+	}
+
+	private void detectMarkup() {
+		int length = builder.length() - tagStart;
+		if (length == 1 && builder.charAt(tagStart) == '?')
+			startSkipping(INSTRUCTION);
+		else if (length == 3 && builder.charAt(tagStart) == '!' && builder.charAt(tagStart + 1) == '-'
+				&& builder.charAt(tagStart + 2) == '-')
+			startSkipping(COMMENT);
+	}
+
+	private void startSkipping(int state) {
+		builder.setLength(tagStart);
+		this.state = state;
+		matched = 0;
+	}
+
+	private void skip(char c, char repeated, int count) {
+		if (c == repeated)
+			matched = Math.min(matched + 1, count);
+		else if (c == '>' && matched == count)
+			state = TEXT;
+		else
+			matched = 0;
+	}
+
+	private void closeTag() {
+		state = TEXT;
+		int last = builder.length() - 1;
+		while (last >= tagStart && builder.charAt(last) <= ' ')
+			last--;
+		boolean closing = nameStart != -1 && builder.charAt(nameStart) == '/';
+		boolean selfClosing = !closing && last >= tagStart && builder.charAt(last) == '/';
+		int end = selfClosing ? last : last + 1;
+		if (scan == NAME && nameStart != -1)
+			nameEnd = Math.max(end, nameStart);
+		else if (scan == VALUE)
+			mark(end);
+		else if (scan == EQUALS) {
+			marks[markCount + 2] = end;
+			mark(end);
+		}
+		if (closing) {
+			if (handler == null ? stack.isEmpty() : depth == 0)
+				throw new IllegalArgumentException(
+						String.format("Unexpected closing tag \"<%s>\"", builder.substring(nameStart, last + 1)));
+			builder.setLength(0);
+			if (validator != null)
+				validator.end();
+			if (handler == null) {
+				XMLNode node = stack.pop();
+				bindings = scopes[stack.size()];
+				closed(node);
+			} else {
+				depth--;
+				handler.end();
 			}
+		} else {
+			String tag = tokenize();
+			builder.setLength(0);
+			if (handler == null)
+				build(tag, selfClosing);
+			else
+				emit(tag, selfClosing);
+		}
+	}
+
+	private void emit(String element, boolean selfClosing) {
+		long start = startTimer();
+		if (validator != null)
+			validator.start(element);
+		handler.start(element);
+		for (int i = 0; i < tokenCount; i += 2) {
+			if (validator != null)
+				validator.attribute(tokens[i], tokens[i + 1]);
+			handler.attribute(tokens[i], tokens[i + 1]);
+		}
+		attributes += tokenCount >> 1;
+		if (validator != null)
+			validator.opened();
+		elements++;
+		depth++;
+		maxDepth = Math.max(maxDepth, depth);
+		buildingNanos += stopTimer(start);
+		if (selfClosing) {
+			if (validator != null)
+				validator.end();
+			depth--;
+			handler.end();
+		}
+	}
+
+	private void build(String tag, boolean selfClosing) {
+		long start = startTimer();
+		XMLNode node;
+		if (stack.isEmpty()) {
+			node = rooted ? output.clearNodes().clearAttributes().setText(null) : output;
+			rooted = true;
+		} else
+			node = stack.peek().addNode(null);
+		parseTag(tag, node);
+		if (validator != null)
+			validate(node);
+		int scope = bindings;
+		resolve(node);
+		elements++;
+		attributes += node.getAttributeCount();
+		maxDepth = Math.max(maxDepth, stack.size() + 1);
+		buildingNanos += stopTimer(start);
+		if (selfClosing) {
+			if (validator != null)
+				validator.end();
+			bindings = scope;
+			closed(node);
+		} else {
+			if (stack.size() == scopes.length)
+				scopes = Arrays.copyOf(scopes, scopes.length << 1);
+			scopes[stack.size()] = scope;
+			stack.push(node);
+		}
+	}
+
+	private long startTimer() {
+		return measured ? System.nanoTime() : 0L;
+	}
+
+	private long stopTimer(long start) {
+		return measured ? System.nanoTime() - start : 0L;
+	}
+
+	private void validate(XMLNode node) {
+		validator.start(node.getTag());
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			validator.attribute(attribute.getName(), attribute.getValue());
 		}
-		return node;
+		validator.opened();
 	}
 
-	private class XMLParserNode {
+	private void complete() {
+		if (validator != null)
+			validator.finish();
+		report();
+	}
+
+	private void report() {
+		if (measured)
+			metrics.parsed(new XMLParseReport(characters, bytes, elements, attributes, maxDepth,
+					processingNanos - buildingNanos, buildingNanos));
+	}
 
-		private String tag;
-		private String text;
-		private final List<XMLParserNode> nodes;
-		private final Map<String, String> attributes;
+	private void closed(XMLNode node) {
+		if (listener != null)
+			listener.accept(node);
+	}
+
+	private void parseTag(String tag, XMLNode node) {
+		node.setTag(tag);
+		for (int i = 0; i < tokenCount; i += 2)
+			node.appendAttribute(tokens[i], tokens[i + 1]);
+	}
 
-		private XMLParserNode() {
-			this.tag = null;
-			this.text = null;
-			this.nodes = new ArrayList<>();
-			this.attributes = new LinkedHashMap<>();
+	/**
+	 * Creates the element name and the attributes of the start tag from the bounds recorded while it was scanned. Both
+	 * the tree and the handler mode read elements through this method, so they always see the same names and values.
+	 *
+	 * @return the element name, with the attribute names and values stored as pairs in {@link #tokens}
+	 */
+	private String tokenize() {
+		String name = nameStart == -1 ? "" : symbol(builder, nameStart, nameEnd);
+		Arrays.fill(tokens, 0, tokenCount, null);
+		tokenCount = 0;
+		if (markCount > LINEAR_ATTRIBUTES << 2)
+			positions.clear();
+		for (int i = 0; i < markCount; i += 4) {
+			String attribute = symbol(builder, marks[i], marks[i + 1]);
+			String value = builder.substring(marks[i + 2], marks[i + 3]);
+			int index = find(attribute);
+			if (index != -1)
+				tokens[index + 1] = value;
+			else {
+				if (tokenCount == tokens.length)
+					tokens = Arrays.copyOf(tokens, tokenCount << 1);
+				tokens[tokenCount++] = attribute;
+				tokens[tokenCount++] = value;
+			}
 		}
+		return name;
+	}
 
-		private void copy(XMLNode output) {
-			output.setTag(tag);
-			output.setText(text);
-			for (Map.Entry<String, String> attribute : attributes.entrySet())
-				output.addAttribute(attribute.getKey()).setValue(attribute.getValue());
-			for (XMLParserNode node : nodes)
-				node.copy(output.addNode(null));
+	/**
+	 * Finds an attribute of the current start tag. Attributes of narrow tags are compared one by one, and attributes of
+	 * wide tags are indexed as they are added.
+	 *
+	 * @param attribute the attribute name
+	 *
+	 * @return the index of the attribute name in {@link #tokens}, or {@code -1} if it is not present
+	 */
+	private int find(String attribute) {
+		if (markCount <= LINEAR_ATTRIBUTES << 2) {
+			for (int i = 0; i < tokenCount; i += 2)
+				if (tokens[i].equals(attribute))
+					return i;
+			return -1;
 		}
+		Integer index = positions.putIfAbsent(attribute, tokenCount);
+		return index == null ? -1 : index;
+	}
 
-		private XMLParserNode setTag(String tag) {
-			this.tag = tag;
-			return this;
+	private void resolve(XMLNode node) {
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			String name = attribute.getName();
+			if (XMLQName.isDeclaration(name))
+				bind(name.indexOf(':') == -1 ? null : symbol(name, name.indexOf(':') + 1, name.length()),
+						XMLQName.namespace(attribute.getValue()));
 		}
+		if (bindings == 0)
+			return;
+		node.setQName(qualify(node.getTag(), false));
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			attribute.setQName(qualify(attribute.getName(), true));
+		}
+	}
 
-		private XMLParserNode setText(String text) {
-			this.text = text;
-			return this;
+	private void bind(String prefix, String namespace) {
+		if (bindings == prefixes.length) {
+			prefixes = Arrays.copyOf(prefixes, bindings << 1);
+			namespaces = Arrays.copyOf(namespaces, bindings << 1);
 		}
+		prefixes[bindings] = prefix;
+		namespaces[bindings] = namespace;
+		bindings++;
+	}
 
-		private XMLParserNode addNode(XMLParserNode node) {
-			this.nodes.add(node);
-			return this;
+	/**
+	 * Finds the namespace bound to the prefix of a name by the innermost declaration in scope.
+	 *
+	 * @param name  the prefixed name
+	 * @param colon the index of the colon ending the prefix, or {@code -1} to find the default namespace
+	 *
+	 * @return the namespace URI, or {@code null} if the prefix is not bound
+	 */
+	private String lookup(String name, int colon) {
+		for (int i = bindings - 1; i >= 0; i--) {
+			String prefix = prefixes[i];
+			if (colon == -1 ? prefix == null : prefix != null && prefix.length() == colon && name.startsWith(prefix))
+				return namespaces[i];
+		}
+		return null;
+	}
+
+	private XMLQName qualify(String name, boolean attribute) {
+		int colon = name.indexOf(':');
+		String namespace;
+		if (attribute && XMLQName.isDeclaration(name))
+			namespace = XMLQName.XMLNS_NAMESPACE;
+		else if (colon == -1)
+			namespace = attribute ? null : lookup(name, colon);
+		else if (colon == 3 && name.startsWith("xml"))
+			namespace = XMLQName.XML_NAMESPACE;
+		else {
+			namespace = lookup(name, colon);
+			if (namespace == null)
+				colon = -1;
+		}
+		Map<String, XMLQName> locals = names.get(namespace);
+		XMLQName qname = locals == null ? null : locals.get(name);
+		if (qname == null) {
+			qname = XMLQName.of(namespace, name.substring(colon + 1));
+			if (nameCount < SYMBOL_CAPACITY) {
+				names.computeIfAbsent(namespace, key -> new HashMap<>()).put(name, qname);
+				nameCount++;
+			}
 		}
+		return qname;
+	}
 
-		private XMLParserNode addAttribute(String name, String value) {
-			this.attributes.put(name, value);
-			return this;
+	/**
+	 * Canonicalizes a name held in a region of a character sequence. Names are looked up by their characters in an
+	 * open-addressing table, so a name seen before is returned without creating a string.
+	 *
+	 * @param chars the sequence holding the name
+	 * @param start the index of the first character of the name
+	 * @param end   the index following the last character of the name
+	 *
+	 * @return the canonical instance of the name
+	 */
+	private String symbol(CharSequence chars, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++)
+			hash = 31 * hash + chars.charAt(i);
+		int mask = symbols.length - 1;
+		for (int slot = (hash ^ hash >>> 16) & mask;; slot = (slot + 1) & mask) {
+			String symbol = symbols[slot];
+			if (symbol == null) {
+				symbol = chars.subSequence(start, end).toString();
+				if (symbolCount < SYMBOL_CAPACITY) {
+					symbols[slot] = symbol;
+					symbolCount++;
+				}
+				return symbol;
+			}
+			if (symbol.hashCode() == hash && matches(symbol, chars, start, end))
+				return symbol;
 		}
+	}
 
+	private static boolean matches(String symbol, CharSequence chars, int start, int end) {
+		if (symbol.length() != end - start)
+			return false;
+		for (int i = 0; i < symbol.length(); i++)
+			if (symbol.charAt(i) != chars.charAt(start + i))
+				return false;
+		return true;
 	}
 
 }
@@ -0,0 +1,195 @@
+package com.kaba4cow.xmltree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An edit script that transforms one {@link XMLNode} tree into another, produced by
+ * {@link XMLDiff#diff(XMLNode, XMLNode)} and applied with {@link XMLDiff#apply(XMLPatch, XMLNode)}.
+ * <p>
+ * Operations address nodes by paths of child indices starting at the root, and must be applied in order, since each
+ * operation addresses the tree as left by the previous ones.
+ */
+public final class XMLPatch {
+
+	private final List<Operation> operations;
+
+	XMLPatch(List<Operation> operations) {
+		this.operations = Collections.unmodifiableList(operations);
+	}
+
+	/**
+	 * Retrieves the operations of this patch in application order.
+	 *
+	 * @return an unmodifiable list of operations
+	 */
+	public List<Operation> getOperations() {
+		return operations;
+	}
+
+	/**
+	 * Gets the number of operations.
+	 *
+	 * @return the count of operations
+	 */
+	public int size() {
+		return operations.size();
+	}
+
+	/**
+	 * Checks if the patch has no operations, meaning the compared trees were equal.
+	 *
+	 * @return {@code true} if there are no operations, {@code false} otherwise
+	 */
+	public boolean isEmpty() {
+		return operations.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLPatch [operations=%s]", operations);
+	}
+
+	/**
+	 * The type of an {@link Operation}.
+	 */
+	public enum Type {
+
+		/**
+		 * Sets the tag of the node at the path.
+		 */
+		SET_TAG,
+
+		/**
+		 * Sets the text of the node at the path.
+		 */
+		SET_TEXT,
+
+		/**
+		 * Sets the value of an attribute of the node at the path, appending the attribute if it does not exist.
+		 */
+		SET_ATTRIBUTE,
+
+		/**
+		 * Removes an attribute of the node at the path.
+		 */
+		REMOVE_ATTRIBUTE,
+
+		/**
+		 * Inserts a copy of a node as a child of the node at the path.
+		 */
+		INSERT_NODE,
+
+		/**
+		 * Removes a child of the node at the path.
+		 */
+		DELETE_NODE,
+
+		/**
+		 * Moves a child of the node at the path to another index.
+		 */
+		MOVE_NODE
+
+	}
+
+	/**
+	 * A single operation of an {@link XMLPatch}.
+	 */
+	public static final class Operation {
+
+		private final Type type;
+		private final int[] path;
+		private final int index;
+		private final int target;
+		private final String name;
+		private final String value;
+		private final XMLNode node;
+
+		Operation(Type type, int[] path, int index, int target, String name, String value, XMLNode node) {
+			this.type = type;
+			this.path = path;
+			this.index = index;
+			this.target = target;
+			this.name = name;
+			this.value = value;
+			this.node = node;
+		}
+
+		/**
+		 * Retrieves the type of the operation.
+		 *
+		 * @return the operation type
+		 */
+		public Type getType() {
+			return type;
+		}
+
+		/**
+		 * Retrieves the path of child indices from the root to the node the operation applies to.
+		 *
+		 * @return a copy of the path
+		 */
+		public int[] getPath() {
+			return path.clone();
+		}
+
+		/**
+		 * Retrieves the child index for {@link Type#INSERT_NODE}, {@link Type#DELETE_NODE} and {@link Type#MOVE_NODE}.
+		 *
+		 * @return the child index, or {@code -1} for other types
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Retrieves the destination index for {@link Type#MOVE_NODE}.
+		 *
+		 * @return the destination index, or {@code -1} for other types
+		 */
+		public int getTarget() {
+			return target;
+		}
+
+		/**
+		 * Retrieves the attribute name for {@link Type#SET_ATTRIBUTE} and {@link Type#REMOVE_ATTRIBUTE}.
+		 *
+		 * @return the attribute name, or {@code null} for other types
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Retrieves the new tag, text or attribute value for {@link Type#SET_TAG}, {@link Type#SET_TEXT} and
+		 * {@link Type#SET_ATTRIBUTE}.
+		 *
+		 * @return the new value, or {@code null} for other types
+		 */
+		public String getValue() {
+			return value;
+		}
+
+		/**
+		 * Retrieves the node to insert for {@link Type#INSERT_NODE}.
+		 *
+		 * @return a copy of the node to insert, or {@code null} for other types
+		 */
+		public XMLNode getNode() {
+			return node == null ? null : node.deepCopy();
+		}
+
+		XMLNode node() {
+			return node;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Operation [type=%s, path=%s, index=%s, target=%s, name=%s, value=%s, node=%s]", type,
+					Arrays.toString(path), index, target, name, value, node);
+		}
+
+	}
+
+}
@@ -11,6 +11,11 @@ public class XMLPredicates {
 		return node -> Objects.equals(node.getTag(), tag);
 	}
 
+	public static Predicate<XMLNode> withTag(String namespace, String localName) {
+		XMLQName name = XMLQName.of(namespace, localName);
+		return node -> node.getQName() == name;
+	}
+
 	public static Predicate<XMLNode> withText(String text) {
 		return node -> Objects.equals(node.getText(), text);
 	}
@@ -32,6 +37,11 @@ public class XMLPredicates {
 		return attribute -> Objects.equals(attribute.getName(), name);
 	}
 
+	public static Predicate<XMLAttribute> withName(String namespace, String localName) {
+		XMLQName name = XMLQName.of(namespace, localName);
+		return attribute -> attribute.getQName() == name;
+	}
+
 	public static Predicate<XMLAttribute> withValue(String value) {
 		return attribute -> Objects.equals(attribute.getValue(), value);
 	}
@@ -0,0 +1,176 @@
+package com.kaba4cow.xmltree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * A push-mode XML parser that accepts a document as a sequence of byte chunks of arbitrary size.
+ * <p>
+ * Chunks are decoded and tokenized as soon as they are fed, so neither the raw bytes nor the source text of the whole
+ * document are ever buffered. Tokenizer state is kept across chunk boundaries, including multi-byte characters, tags,
+ * attribute values, comments and processing instructions. Every element is reported to the element listener as soon as
+ * its closing tag has been parsed.
+ * <p>
+ * Instances are not thread-safe. After {@link #finish()} the parser is ready for the next document.
+ * 
+ * @see XMLNode
+ */
+public class XMLPushParser {
+
+	private final XMLParser parser;
+	private final XMLDecoder decoder;
+	private XMLMetrics metrics;
+	private XMLSchema schema;
+	private XMLNode root;
+
+	/**
+	 * Creates a new push parser for UTF-8 encoded documents.
+	 */
+	public XMLPushParser() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Creates a new push parser for documents in the specified encoding.
+	 *
+	 * @param charset the {@link Charset} of the documents
+	 */
+	public XMLPushParser(Charset charset) {
+		this.parser = new XMLParser();
+		this.decoder = new XMLDecoder(parser, charset);
+		this.metrics = null;
+		this.schema = null;
+		begin();
+	}
+
+	/**
+	 * Sets the listener notified with every element as soon as its closing tag has been parsed. The element is fully
+	 * populated at that point and may be removed from its parent to release its memory.
+	 *
+	 * @param listener the listener, or {@code null} to disable notifications
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLPushParser onElement(Consumer<XMLNode> listener) {
+		parser.setListener(listener);
+		return this;
+	}
+
+	/**
+	 * Sets the metrics that receive a report for every document completed by this parser, instead of the metrics
+	 * installed through {@link XMLNode#setMetrics(XMLMetrics)}.
+	 *
+	 * @param metrics the metrics, or {@code null} to use the globally installed metrics
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLPushParser setMetrics(XMLMetrics metrics) {
+		this.metrics = metrics;
+		parser.setMetrics(metrics == null ? XMLNode.getMetrics() : metrics);
+		return this;
+	}
+
+	/**
+	 * Sets the schema every document is validated against while it is tokenized. An element that does not match the
+	 * schema is rejected before it is reported to the element listener. Must be set before the first chunk of a
+	 * document is fed.
+	 *
+	 * @param schema the schema, or {@code null} to disable validation
+	 * 
+	 * @return a reference to this object
+	 */
+	public XMLPushParser setSchema(XMLSchema schema) {
+		this.schema = schema;
+		parser.validate(schema);
+		return this;
+	}
+
+	/**
+	 * Feeds the next chunk of the document.
+	 *
+	 * @param bytes the chunk
+	 * 
+	 * @return a reference to this object
+	 * 
+	 * @throws IllegalArgumentException if the chunk contains an unmatched closing tag or an element that does not
+	 *                                  match the schema, in which case the current document is discarded
+	 */
+	public XMLPushParser feed(byte[] bytes) {
+		return feed(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Feeds the next chunk of the document from a region of an array.
+	 *
+	 * @param bytes  the array holding the chunk
+	 * @param offset the index of the first byte of the chunk
+	 * @param length the number of bytes in the chunk
+	 * 
+	 * @return a reference to this object
+	 * 
+	 * @throws IllegalArgumentException if the chunk contains an unmatched closing tag or an element that does not
+	 *                                  match the schema, in which case the current document is discarded
+	 */
+	public XMLPushParser feed(byte[] bytes, int offset, int length) {
+		return feed(ByteBuffer.wrap(bytes, offset, length));
+	}
+
+	/**
+	 * Feeds the remaining bytes of a buffer as the next chunk of the document. The buffer is fully consumed.
+	 *
+	 * @param buffer the chunk
+	 * 
+	 * @return a reference to this object
+	 * 
+	 * @throws IllegalArgumentException if the chunk contains an unmatched closing tag or an element that does not
+	 *                                  match the schema, in which case the current document is discarded
+	 */
+	public XMLPushParser feed(ByteBuffer buffer) {
+		try {
+			decoder.decode(buffer);
+		} catch (RuntimeException exception) {
+			decoder.reset();
+			parser.reset();
+			begin();
+			throw exception;
+		}
+		return this;
+	}
+
+	/**
+	 * Completes the current document and prepares the parser for the next one.
+	 *
+	 * @return the root node of the completed document
+	 * 
+	 * @throws IllegalArgumentException if the remaining input contains an unmatched closing tag or the document does
+	 *                                  not match the schema, in which case the document is discarded
+	 */
+	public XMLNode finish() {
+		XMLNode document = root;
+		try {
+			decoder.finish();
+		} catch (RuntimeException exception) {
+			decoder.reset();
+			parser.reset();
+			begin();
+			throw exception;
+		}
+		try {
+			parser.end();
+		} finally {
+			begin();
+		}
+		return document;
+	}
+
+	private void begin() {
+		root = new XMLNode();
+		parser.begin(root);
+		if (metrics != null)
+			parser.setMetrics(metrics);
+		parser.validate(schema);
+	}
+
+}
@@ -0,0 +1,248 @@
+package com.kaba4cow.xmltree;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A namespace-qualified name of an {@link XMLNode} or {@link XMLAttribute}, made of a namespace URI and a local name.
+ * <p>
+ * Instances are interned: there is at most one instance for every pair of namespace URI and local name while it is in
+ * use, so qualified names can be compared by reference. Interned instances that are no longer referenced are
+ * reclaimed by the garbage collector. Interning is lock-free, so names can be created concurrently from any number of
+ * threads, including virtual threads, without contending on a monitor.
+ *
+ * @see XMLNode#getQName()
+ * @see XMLAttribute#getQName()
+ */
+public final class XMLQName {
+
+	/**
+	 * The namespace URI bound to the {@code xml} prefix.
+	 */
+	public static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+	/**
+	 * The namespace URI of namespace declaration attributes.
+	 */
+	public static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+
+	private static final String XML_PREFIX = "xml";
+	private static final String XMLNS = "xmlns";
+
+	private static final ConcurrentMap<Key, Entry> NAMES = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<XMLQName> RECLAIMED = new ReferenceQueue<>();
+
+	private final String namespace;
+	private final String localName;
+	private final int hash;
+
+	private XMLQName(String namespace, String localName) {
+		this.namespace = namespace;
+		this.localName = localName;
+		this.hash = 31 * Objects.hashCode(namespace) + localName.hashCode();
+	}
+
+	/**
+	 * Retrieves the interned qualified name for a namespace URI and a local name.
+	 *
+	 * @param namespace the namespace URI, or {@code null} for no namespace
+	 * @param localName the local name
+	 *
+	 * @return the interned qualified name
+	 *
+	 * @throws NullPointerException if the local name is {@code null}
+	 */
+	public static XMLQName of(String namespace, String localName) {
+		Key key = new Key(namespace, Objects.requireNonNull(localName));
+		purge();
+		Entry entry = NAMES.get(key);
+		XMLQName interned = entry == null ? null : entry.get();
+		if (interned != null)
+			return interned;
+		XMLQName name = new XMLQName(namespace, localName);
+		Entry created = new Entry(name, key);
+		while (true) {
+			entry = NAMES.putIfAbsent(key, created);
+			if (entry == null)
+				return name;
+			interned = entry.get();
+			if (interned != null)
+				return interned;
+			if (NAMES.replace(key, entry, created))
+				return name;
+		}
+	}
+
+	private static void purge() {
+		for (Reference<? extends XMLQName> reference; (reference = RECLAIMED.poll()) != null;)
+			NAMES.remove(((Entry) reference).key, reference);
+	}
+
+	/**
+	 * Retrieves the namespace URI.
+	 *
+	 * @return the namespace URI, or {@code null} if the name is not in a namespace
+	 */
+	public String getNamespace() {
+		return namespace;
+	}
+
+	/**
+	 * Retrieves the local name, the part of the qualified name after the prefix.
+	 *
+	 * @return the local name
+	 */
+	public String getLocalName() {
+		return localName;
+	}
+
+	/**
+	 * Checks if the name is in a namespace.
+	 *
+	 * @return {@code true} if the namespace URI is not {@code null}, {@code false} otherwise
+	 */
+	public boolean hasNamespace() {
+		return namespace != null;
+	}
+
+	/**
+	 * Checks if an attribute name declares a namespace prefix, that is, whether it is {@code xmlns} or starts with
+	 * {@code xmlns:}.
+	 *
+	 * @param name the attribute name
+	 *
+	 * @return {@code true} if the attribute is a namespace declaration, {@code false} otherwise
+	 */
+	static boolean isDeclaration(String name) {
+		return name != null && name.startsWith(XMLNS)
+				&& (name.length() == XMLNS.length() || name.charAt(XMLNS.length()) == ':');
+	}
+
+	/**
+	 * Resolves a tag or attribute name against the namespace declarations of a node and its ancestors. Unprefixed
+	 * attributes are in no namespace, and names with an unbound prefix are kept whole as local names in no namespace.
+	 *
+	 * @param name      the tag or attribute name
+	 * @param attribute whether the name is an attribute name
+	 * @param scope     the node whose declarations are in scope
+	 *
+	 * @return the resolved name, or {@code null} if the name is {@code null}
+	 */
+	static XMLQName resolve(String name, boolean attribute, XMLNode scope) {
+		if (name == null)
+			return null;
+		if (attribute && isDeclaration(name))
+			return of(XMLNS_NAMESPACE, name.length() == XMLNS.length() ? XMLNS : name.substring(XMLNS.length() + 1));
+		int colon = name.indexOf(':');
+		if (colon == -1) {
+			if (attribute)
+				return of(null, name);
+			XMLAttribute declaration = declaration(scope, XMLNS);
+			return of(declaration == null ? null : namespace(declaration.getValue()), name);
+		}
+		String prefix = name.substring(0, colon);
+		if (prefix.equals(XML_PREFIX))
+			return of(XML_NAMESPACE, name.substring(colon + 1));
+		XMLAttribute declaration = declaration(scope, XMLNS + ':' + prefix);
+		String namespace = declaration == null ? null : namespace(declaration.getValue());
+		return namespace == null ? of(null, name) : of(namespace, name.substring(colon + 1));
+	}
+
+	private static XMLAttribute declaration(XMLNode scope, String name) {
+		for (XMLNode node = scope; node != null; node = node.getParent()) {
+			XMLAttribute attribute = node.getAttribute(name);
+			if (attribute != null)
+				return attribute;
+		}
+		return null;
+	}
+
+	/**
+	 * Converts the value of a namespace declaration to a namespace URI, where an empty value undeclares the namespace.
+	 *
+	 * @param value the declared value
+	 *
+	 * @return the namespace URI, or {@code null} for no namespace
+	 */
+	static String namespace(String value) {
+		return value == null || value.isEmpty() ? null : value;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object)
+			return true;
+		if (!(object instanceof XMLQName))
+			return false;
+		XMLQName other = (XMLQName) object;
+		return Objects.equals(namespace, other.namespace) && localName.equals(other.localName);
+	}
+
+	/**
+	 * The namespace URI and local name an interned name is looked up by.
+	 */
+	private static final class Key {
+
+		private final String namespace;
+		private final String localName;
+		private final int hash;
+
+		private Key(String namespace, String localName) {
+			this.namespace = namespace;
+			this.localName = localName;
+			this.hash = 31 * Objects.hashCode(namespace) + localName.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object)
+				return true;
+			if (!(object instanceof Key))
+				return false;
+			Key other = (Key) object;
+			return hash == other.hash && Objects.equals(namespace, other.namespace)
+					&& localName.equals(other.localName);
+		}
+
+	}
+
+	/**
+	 * A weak reference to an interned name, compared by identity so that only the entry of a reclaimed name is removed
+	 * when it is polled from the reference queue.
+	 */
+	private static final class Entry extends WeakReference<XMLQName> {
+
+		private final Key key;
+
+		private Entry(XMLQName name, Key key) {
+			super(name, RECLAIMED);
+			this.key = key;
+		}
+
+	}
+
+	/**
+	 * Converts the name to the {@code {namespace}localName} notation, or just the local name if it is in no namespace.
+	 *
+	 * @return the string representation of the name
+	 */
+	@Override
+	public String toString() {
+		return namespace == null ? localName : '{' + namespace + '}' + localName;
+	}
+
+}
@@ -0,0 +1,420 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * A structural contract for XML documents: the root element, and for every defined element its allowed and required
+ * attributes, the patterns of attribute values and text content, and the cardinalities of its child elements.
+ * <p>
+ * A schema is configured once through a {@link Builder} and compiled into one state machine per element. Children of
+ * an element form a sequence of distinct tags, or an unordered set of tags, so every element is validated by a single
+ * map lookup and counter update with no backtracking. Documents are validated while the parser tokenizes them, and
+ * invalid input is rejected at the first element that breaks the contract, before it is reported to listeners,
+ * handlers or binders. Elements without a definition are not constrained, nor are their descendants. Namespace
+ * declarations are always allowed. A schema is immutable and thread-safe.
+ *
+ * @see XMLPushParser#setSchema(XMLSchema)
+ * @see XMLBinder.Builder#schema(XMLSchema)
+ */
+public final class XMLSchema {
+
+	/**
+	 * The maximum number of occurrences of a child element that is allowed to repeat without limit.
+	 */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	private static final int MAX_REQUIRED = Long.SIZE;
+
+	private final String root;
+	private final Map<String, Definition> definitions;
+
+	private XMLSchema(Builder builder) {
+		this.root = builder.root;
+		this.definitions = new HashMap<>();
+		for (Element element : builder.elements.values())
+			definitions.put(element.tag, new Definition(element));
+		for (Definition definition : definitions.values())
+			for (int i = 0; i < definition.tags.length; i++)
+				definition.nested[i] = definitions.get(definition.tags[i]);
+	}
+
+	/**
+	 * Creates a builder for a schema of documents with the specified root element.
+	 *
+	 * @param root the tag of the root element
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static Builder builder(String root) {
+		return new Builder(Objects.requireNonNull(root));
+	}
+
+	/**
+	 * Retrieves the tag of the root element.
+	 *
+	 * @return the tag
+	 */
+	public String getRoot() {
+		return root;
+	}
+
+	/**
+	 * Parses an XML source string into a new node, validating it while it is tokenized.
+	 *
+	 * @param source the XML source string
+	 *
+	 * @return the root node of the document
+	 *
+	 * @throws IllegalArgumentException if the document does not match this schema or contains an unmatched closing
+	 *                                  tag
+	 */
+	public XMLNode parse(String source) {
+		XMLNode node = new XMLNode();
+		XMLParser parser = XMLParser.local();
+		parser.begin(node);
+		parser.validate(this);
+		parser.parse(source);
+		return node;
+	}
+
+	/**
+	 * Reads a UTF-8 encoded XML document from a channel into a new node, validating it while it is tokenized.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 *
+	 * @return the root node of the document
+	 *
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the document does not match this schema or contains an unmatched closing
+	 *                                  tag
+	 */
+	public XMLNode read(ReadableByteChannel channel) throws IOException {
+		return read(channel, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads an XML document in the specified encoding from a channel into a new node, validating it while it is
+	 * tokenized. Reading stops at the first element that does not match this schema.
+	 *
+	 * @param channel the {@link ReadableByteChannel} to read from, in blocking mode
+	 * @param charset the {@link Charset} of the document
+	 *
+	 * @return the root node of the document
+	 *
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the document does not match this schema or contains an unmatched closing
+	 *                                  tag
+	 */
+	public XMLNode read(ReadableByteChannel channel, Charset charset) throws IOException {
+		XMLNode node = new XMLNode();
+		XMLParser parser = XMLParser.local();
+		parser.begin(node);
+		parser.validate(this);
+		XMLDecoder.read(channel, charset, parser);
+		return node;
+	}
+
+	/**
+	 * Validates a node and its descendants as a whole document in a single non-recursive pass, so documents of any
+	 * depth are validated.
+	 *
+	 * @param node the root node of the document
+	 *
+	 * @throws IllegalArgumentException if the document does not match this schema
+	 */
+	public void validate(XMLNode node) {
+		XMLValidator validator = new XMLValidator(this);
+		Deque<XMLNode> open = new ArrayDeque<>();
+		int[] next = new int[8];
+		start(node, validator);
+		open.push(node);
+		while (!open.isEmpty()) {
+			XMLNode parent = open.peek();
+			int depth = open.size() - 1;
+			if (next[depth] == parent.getNodeCount()) {
+				validator.end();
+				open.pop();
+				continue;
+			}
+			XMLNode child = parent.getNode(next[depth]++);
+			start(child, validator);
+			if (open.size() == next.length)
+				next = Arrays.copyOf(next, next.length << 1);
+			next[open.size()] = 0;
+			open.push(child);
+		}
+		validator.finish();
+	}
+
+	private static void start(XMLNode node, XMLValidator validator) {
+		validator.start(node.getTag());
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			validator.attribute(attribute.getName(), attribute.getValue());
+		}
+		validator.opened();
+		String text = node.getText();
+		if (text != null)
+			validator.text(text);
+	}
+
+	/**
+	 * Retrieves the compiled definition of the root element.
+	 *
+	 * @return the definition, or {@code null} if the root element is not constrained
+	 */
+	Definition definition() {
+		return definitions.get(root);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLSchema [root=%s, elements=%s]", root, definitions.keySet());
+	}
+
+	/**
+	 * Configures and creates an {@link XMLSchema}.
+	 */
+	public static final class Builder {
+
+		private final String root;
+		private final Map<String, Element> elements;
+
+		private Builder(String root) {
+			this.root = root;
+			this.elements = new LinkedHashMap<>();
+		}
+
+		/**
+		 * Defines the contract of the elements with the specified tag, wherever they appear in the document.
+		 *
+		 * @param tag        the tag of the elements
+		 * @param definition the action declaring the attributes, text content and children of the elements
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if elements with the tag are already defined
+		 */
+		public Builder element(String tag, Consumer<Element> definition) {
+			Objects.requireNonNull(tag);
+			if (elements.containsKey(tag))
+				throw new IllegalArgumentException(String.format("Element \"%s\" is already defined", tag));
+			Element element = new Element(tag);
+			definition.accept(element);
+			elements.put(tag, element);
+			return this;
+		}
+
+		/**
+		 * Creates the schema.
+		 *
+		 * @return a new {@link XMLSchema}
+		 */
+		public XMLSchema build() {
+			return new XMLSchema(this);
+		}
+
+	}
+
+	/**
+	 * Declares the attributes, text content and children of an element defined through
+	 * {@link Builder#element(String, Consumer)}. An element only allows the declared attributes and children, and no
+	 * children at all if none are declared.
+	 */
+	public static final class Element {
+
+		private final String tag;
+		private final Map<String, Pattern> attributes;
+		private final List<String> required;
+		private Pattern text;
+		private final Map<String, int[]> children;
+		private boolean ordered;
+
+		private Element(String tag) {
+			this.tag = tag;
+			this.attributes = new LinkedHashMap<>();
+			this.required = new ArrayList<>();
+			this.text = null;
+			this.children = new LinkedHashMap<>();
+			this.ordered = true;
+		}
+
+		/**
+		 * Declares an attribute with any value.
+		 *
+		 * @param name     the attribute name
+		 * @param required whether the attribute must be present
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the attribute is already declared
+		 */
+		public Element attribute(String name, boolean required) {
+			return declare(name, required, null);
+		}
+
+		/**
+		 * Declares an attribute whose value must entirely match a regular expression.
+		 *
+		 * @param name     the attribute name
+		 * @param required whether the attribute must be present
+		 * @param regex    the regular expression
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the attribute is already declared or the regular expression is invalid
+		 */
+		public Element attribute(String name, boolean required, String regex) {
+			return declare(name, required, Pattern.compile(regex));
+		}
+
+		/**
+		 * Requires the text content to entirely match a regular expression. Missing text content is matched as an empty
+		 * string.
+		 *
+		 * @param regex the regular expression
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the regular expression is invalid
+		 */
+		public Element text(String regex) {
+			text = Pattern.compile(regex);
+			return this;
+		}
+
+		/**
+		 * Declares a child element that must occur exactly once.
+		 *
+		 * @param tag the tag of the child element
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the child element is already declared
+		 */
+		public Element child(String tag) {
+			return child(tag, 1, 1);
+		}
+
+		/**
+		 * Declares a child element with the specified cardinality. Unless {@link #unordered()} is called, children must
+		 * occur in the order they are declared, and all occurrences of a child element must be adjacent.
+		 *
+		 * @param tag the tag of the child element
+		 * @param min the minimum number of occurrences
+		 * @param max the maximum number of occurrences, or {@link XMLSchema#UNBOUNDED}
+		 *
+		 * @return a reference to this object
+		 *
+		 * @throws IllegalArgumentException if the child element is already declared or the cardinality is invalid
+		 */
+		public Element child(String tag, int min, int max) {
+			Objects.requireNonNull(tag);
+			if (min < 0 || max < 1 || max < min)
+				throw new IllegalArgumentException(String.format("Invalid cardinality [%d, %d]", min, max));
+			if (children.containsKey(tag))
+				throw new IllegalArgumentException(String.format("Child \"%s\" is already declared", tag));
+			children.put(tag, new int[] { min, max });
+			return this;
+		}
+
+		/**
+		 * Allows the declared children to occur in any order, each within its cardinality.
+		 *
+		 * @return a reference to this object
+		 */
+		public Element unordered() {
+			ordered = false;
+			return this;
+		}
+
+		private Element declare(String name, boolean required, Pattern pattern) {
+			Objects.requireNonNull(name);
+			if (attributes.containsKey(name))
+				throw new IllegalArgumentException(String.format("Attribute \"%s\" is already declared", name));
+			if (required && this.required.size() == MAX_REQUIRED)
+				throw new IllegalArgumentException(
+						String.format("Element \"%s\" has more than %d required attributes", tag, MAX_REQUIRED));
+			attributes.put(name, pattern);
+			if (required)
+				this.required.add(name);
+			return this;
+		}
+
+	}
+
+	/**
+	 * The compiled state machine of an element. Attributes and children are indexed in declaration order; required
+	 * attributes own one bit each of the mask of seen attributes, and the state of an ordered element is the index of
+	 * the child it is currently matching.
+	 */
+	static final class Definition {
+
+		final String tag;
+		final Map<String, Integer> attributes;
+		final String[] names;
+		final Pattern[] patterns;
+		final long[] bits;
+		final long required;
+		final Pattern text;
+		final Map<String, Integer> children;
+		final String[] tags;
+		final int[] min;
+		final int[] max;
+		final Definition[] nested;
+		final boolean ordered;
+
+		private Definition(Element element) {
+			this.tag = element.tag;
+			this.attributes = new HashMap<>();
+			this.names = new String[element.attributes.size()];
+			this.patterns = new Pattern[names.length];
+			this.bits = new long[names.length];
+			long required = 0L;
+			int index = 0;
+			for (Map.Entry<String, Pattern> entry : element.attributes.entrySet()) {
+				attributes.put(entry.getKey(), index);
+				names[index] = entry.getKey();
+				patterns[index] = entry.getValue();
+				int bit = element.required.indexOf(entry.getKey());
+				if (bit != -1) {
+					bits[index] = 1L << bit;
+					required |= bits[index];
+				}
+				index++;
+			}
+			this.required = required;
+			this.text = element.text;
+			this.children = new HashMap<>();
+			this.tags = new String[element.children.size()];
+			this.min = new int[tags.length];
+			this.max = new int[tags.length];
+			this.nested = new Definition[tags.length];
+			index = 0;
+			for (Map.Entry<String, int[]> entry : element.children.entrySet()) {
+				children.put(entry.getKey(), index);
+				tags[index] = entry.getKey();
+				min[index] = entry.getValue()[0];
+				max[index] = entry.getValue()[1];
+				index++;
+			}
+			this.ordered = element.ordered;
+		}
+
+	}
+
+}
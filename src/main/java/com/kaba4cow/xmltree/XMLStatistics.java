@@ -0,0 +1,214 @@
+package com.kaba4cow.xmltree;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Structural statistics and an estimated retained heap size of an {@link XMLNode} tree.
+ * <p>
+ * The size estimate assumes a 64-bit JVM with compressed object pointers, 12-byte object headers and 8-byte alignment.
+ * Tags and attribute names shared between nodes, as produced by the parser, are counted once. The backing arrays of
+ * child and attribute lists are assumed to be exactly as large as the lists. Typed values are counted as the boxed
+ * values they are held as, and are measured without converting them to strings, so computing the statistics does not
+ * change the tree.
+ * 
+ * @see XMLNode#statistics()
+ */
+public final class XMLStatistics {
+
+	private static final int NODE_SIZE = 48;
+	private static final int ATTRIBUTE_SIZE = 32;
+	private static final int LIST_SIZE = 24;
+	private static final int ARRAY_HEADER_SIZE = 16;
+	private static final int STRING_SIZE = 24;
+	private static final int TRACKER_SIZE = 32;
+	private static final int BOXED_INT_SIZE = 16;
+	private static final int BOXED_LONG_SIZE = 24;
+	private static final int BOXED_DOUBLE_SIZE = 24;
+
+	private final int nodeCount;
+	private final int attributeCount;
+	private final int maxDepth;
+	private final long textCharacters;
+	private final int distinctTagCount;
+	private final long estimatedSize;
+
+	private XMLStatistics(int nodeCount, int attributeCount, int maxDepth, long textCharacters, int distinctTagCount,
+			long estimatedSize) {
+		this.nodeCount = nodeCount;
+		this.attributeCount = attributeCount;
+		this.maxDepth = maxDepth;
+		this.textCharacters = textCharacters;
+		this.distinctTagCount = distinctTagCount;
+		this.estimatedSize = estimatedSize;
+	}
+
+	/**
+	 * Computes the statistics of a tree in a single iterative pass.
+	 *
+	 * @param root the root of the tree
+	 *
+	 * @return the statistics of the tree
+	 */
+	static XMLStatistics of(XMLNode root) {
+		int nodeCount = 0;
+		int attributeCount = 0;
+		int maxDepth = 0;
+		long textCharacters = 0L;
+		long estimatedSize = 0L;
+		Set<String> tags = new HashSet<>();
+		Set<String> symbols = Collections.newSetFromMap(new IdentityHashMap<>());
+		StringBuilder scratch = new StringBuilder();
+		XMLNode[] nodes = { root };
+		int[] depths = { 1 };
+		int size = 1;
+		while (size > 0) {
+			size--;
+			XMLNode node = nodes[size];
+			int depth = depths[size];
+			nodeCount++;
+			maxDepth = Math.max(maxDepth, depth);
+			if (node.getTag() != null) {
+				tags.add(node.getTag());
+				if (symbols.add(node.getTag()))
+					estimatedSize += sizeOf(node.getTag());
+			}
+			String text = node.text();
+			Object parsed = node.parsed();
+			if (text != null) {
+				textCharacters += text.length();
+				estimatedSize += sizeOf(text);
+			} else if (parsed != null) {
+				scratch.setLength(0);
+				XMLValue.append(parsed, scratch);
+				textCharacters += scratch.length();
+			}
+			estimatedSize += sizeOfValue(parsed);
+			estimatedSize += NODE_SIZE + sizeOfList(node.getNodeCount()) + sizeOfList(node.getAttributeCount());
+			if (node.tracker() != null)
+				estimatedSize += TRACKER_SIZE;
+			attributeCount += node.getAttributeCount();
+			for (int i = 0; i < node.getAttributeCount(); i++) {
+				XMLAttribute attribute = node.getAttribute(i);
+				if (symbols.add(attribute.getName()))
+					estimatedSize += sizeOf(attribute.getName());
+				estimatedSize += ATTRIBUTE_SIZE + sizeOf(attribute.value()) + sizeOfValue(attribute.parsed());
+			}
+			if (size + node.getNodeCount() > nodes.length) {
+				int capacity = Math.max(size + node.getNodeCount(), nodes.length << 1);
+				nodes = Arrays.copyOf(nodes, capacity);
+				depths = Arrays.copyOf(depths, capacity);
+			}
+			for (int i = node.getNodeCount() - 1; i >= 0; i--) {
+				nodes[size] = node.getNode(i);
+				depths[size] = depth + 1;
+				size++;
+			}
+		}
+		return new XMLStatistics(nodeCount, attributeCount, maxDepth, textCharacters, tags.size(), estimatedSize);
+	}
+
+	private static long sizeOfList(int size) {
+		return size == 0 ? LIST_SIZE : LIST_SIZE + align(ARRAY_HEADER_SIZE + 4L * size);
+	}
+
+	private static long sizeOf(String string) {
+		if (string == null)
+			return 0L;
+		int width = 1;
+		for (int i = 0; i < string.length(); i++)
+			if (string.charAt(i) > 0xFF) {
+				width = 2;
+				break;
+			}
+		return STRING_SIZE + align(ARRAY_HEADER_SIZE + (long) width * string.length());
+	}
+
+	/**
+	 * Estimates the size of a boxed typed value. Booleans, enum constants and small integers are shared instances that
+	 * are not retained by the tree.
+	 */
+	private static long sizeOfValue(Object value) {
+		if (value instanceof Integer)
+			return isCached((Integer) value) ? 0L : BOXED_INT_SIZE;
+		else if (value instanceof Long)
+			return isCached((Long) value) ? 0L : BOXED_LONG_SIZE;
+		else if (value instanceof Double)
+			return BOXED_DOUBLE_SIZE;
+		else
+			return 0L;
+	}
+
+	private static boolean isCached(long value) {
+		return value >= -128L && value <= 127L;
+	}
+
+	private static long align(long size) {
+		return (size + 7L) & ~7L;
+	}
+
+	/**
+	 * Retrieves the number of nodes, including the root.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Retrieves the number of attributes of all nodes.
+	 *
+	 * @return the number of attributes
+	 */
+	public int getAttributeCount() {
+		return attributeCount;
+	}
+
+	/**
+	 * Retrieves the maximum depth, where the root has depth {@code 1}.
+	 *
+	 * @return the maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Retrieves the total length of the text content of all nodes.
+	 *
+	 * @return the number of text characters
+	 */
+	public long getTextCharacters() {
+		return textCharacters;
+	}
+
+	/**
+	 * Retrieves the number of distinct tags.
+	 *
+	 * @return the number of distinct tags
+	 */
+	public int getDistinctTagCount() {
+		return distinctTagCount;
+	}
+
+	/**
+	 * Retrieves the estimated retained heap size of the tree.
+	 *
+	 * @return the estimated size in bytes
+	 */
+	public long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"XMLStatistics [nodeCount=%s, attributeCount=%s, maxDepth=%s, textCharacters=%s, distinctTagCount=%s, estimatedSize=%s]",
+				nodeCount, attributeCount, maxDepth, textCharacters, distinctTagCount, estimatedSize);
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.kaba4cow.xmltree;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the state machines of an {@link XMLSchema} over the elements of one document as they are reported, in the same
+ * order an {@link XMLHandler} receives them. Open elements are kept on a stack of reusable frames, and descendants of
+ * elements without a definition are only counted.
+ */
+final class XMLValidator {
+
+	private final XMLSchema schema;
+	private Frame[] frames;
+	private int depth;
+	private int skipped;
+	private boolean rooted;
+
+	XMLValidator(XMLSchema schema) {
+		this.schema = schema;
+		this.frames = new Frame[8];
+		this.depth = 0;
+		this.skipped = 0;
+		this.rooted = false;
+	}
+
+	/**
+	 * Validates the placement of an opened element.
+	 *
+	 * @param tag the tag of the element
+	 *
+	 * @throws IllegalArgumentException if the element is not allowed at its position
+	 */
+	void start(String tag) {
+		if (skipped > 0) {
+			skipped++;
+			return;
+		}
+		XMLSchema.Definition definition;
+		if (depth == 0) {
+			if (rooted)
+				throw invalid("Unexpected element <%s> after the root element", tag);
+			if (!schema.getRoot().equals(tag))
+				throw invalid("Expected root element <%s> but found <%s>", schema.getRoot(), tag);
+			rooted = true;
+			definition = schema.definition();
+		} else
+			definition = advance(frames[depth - 1], tag);
+		if (definition == null) {
+			skipped = 1;
+			return;
+		}
+		if (depth == frames.length)
+			frames = Arrays.copyOf(frames, depth << 1);
+		if (frames[depth] == null)
+			frames[depth] = new Frame();
+		frames[depth++].open(definition);
+	}
+
+	/**
+	 * Validates an attribute of the element opened last.
+	 *
+	 * @param name  the attribute name
+	 * @param value the attribute value
+	 *
+	 * @throws IllegalArgumentException if the attribute is not declared or its value does not match
+	 */
+	void attribute(String name, String value) {
+		if (skipped > 0)
+			return;
+		Frame frame = frames[depth - 1];
+		Integer index = frame.definition.attributes.get(name);
+		if (index == null) {
+			if (XMLQName.isDeclaration(name))
+				return;
+			throw invalid("Undeclared attribute \"%s\"", name);
+		}
+		if (!matches(frame.definition.patterns[index], value))
+			throw invalid("Invalid value \"%s\" of attribute \"%s\"", value, name);
+		frame.seen |= frame.definition.bits[index];
+	}
+
+	/**
+	 * Validates that the element opened last has all its required attributes.
+	 *
+	 * @throws IllegalArgumentException if a required attribute is missing
+	 */
+	void opened() {
+		if (skipped > 0)
+			return;
+		Frame frame = frames[depth - 1];
+		XMLSchema.Definition definition = frame.definition;
+		if ((frame.seen & definition.required) != definition.required)
+			for (int i = 0; i < definition.names.length; i++)
+				if ((definition.bits[i] & ~frame.seen) != 0L)
+					throw invalid("Missing required attribute \"%s\"", definition.names[i]);
+	}
+
+	/**
+	 * Records the text of the innermost open element. The text recorded last is validated when the element is closed.
+	 *
+	 * @param text the text
+	 */
+	void text(String text) {
+		if (skipped == 0 && depth > 0)
+			frames[depth - 1].text = text;
+	}
+
+	/**
+	 * Validates the text and the children of the innermost open element and closes it.
+	 *
+	 * @throws IllegalArgumentException if the text does not match or a required child is missing
+	 */
+	void end() {
+		if (skipped > 0) {
+			skipped--;
+			return;
+		}
+		Frame frame = frames[depth - 1];
+		XMLSchema.Definition definition = frame.definition;
+		String text = frame.text == null ? "" : frame.text;
+		if (definition.text != null && !definition.text.matcher(text).matches())
+			throw invalid("Invalid text \"%s\"", text);
+		if (definition.ordered)
+			require(frame, definition.tags.length);
+		else
+			for (int i = 0; i < definition.tags.length; i++)
+				if (frame.counts[i] < definition.min[i])
+					throw missing(definition, i);
+		frame.text = null;
+		depth--;
+	}
+
+	/**
+	 * Validates that the document is complete.
+	 *
+	 * @throws IllegalArgumentException if the document has no root element or ends inside an element
+	 */
+	void finish() {
+		if (!rooted)
+			throw invalid("Missing root element <%s>", schema.getRoot());
+		if (depth > 0 || skipped > 0)
+			throw invalid("Document ends before the element is closed");
+	}
+
+	private XMLSchema.Definition advance(Frame frame, String tag) {
+		XMLSchema.Definition definition = frame.definition;
+		Integer index = definition.children.get(tag);
+		if (index == null)
+			throw invalid("Unexpected element <%s>", tag);
+		int child = index;
+		int count;
+		if (!definition.ordered)
+			count = ++frame.counts[child];
+		else if (child < frame.state)
+			throw invalid("Unexpected element <%s> after <%s>", tag, definition.tags[frame.state]);
+		else {
+			if (child > frame.state) {
+				require(frame, child);
+				frame.state = child;
+				frame.count = 0;
+			}
+			count = ++frame.count;
+		}
+		if (count > definition.max[child])
+			throw invalid("Too many <%s> elements, expected at most %d", tag, definition.max[child]);
+		return definition.nested[child];
+	}
+
+	private void require(Frame frame, int end) {
+		XMLSchema.Definition definition = frame.definition;
+		for (int i = frame.state; i < end; i++)
+			if ((i == frame.state ? frame.count : 0) < definition.min[i])
+				throw missing(definition, i);
+	}
+
+	private static boolean matches(Pattern pattern, String value) {
+		return pattern == null || pattern.matcher(value == null ? "" : value).matches();
+	}
+
+	private IllegalArgumentException missing(XMLSchema.Definition definition, int child) {
+		return invalid("Missing element <%s>, expected at least %d", definition.tags[child], definition.min[child]);
+	}
+
+	private IllegalArgumentException invalid(String format, Object... args) {
+		StringBuilder path = new StringBuilder();
+		for (int i = 0; i < depth; i++)
+			path.append('/').append(frames[i].definition.tag);
+		if (path.length() == 0)
+			path.append('/');
+		return new IllegalArgumentException(
+				String.format("Invalid document at %s: %s", path, String.format(format, args)));
+	}
+
+	/**
+	 * The state of an open element: the child it is matching and how often it occurred for ordered elements, the
+	 * occurrences of every child for unordered elements, the required attributes seen so far and its last text.
+	 */
+	private static final class Frame {
+
+		private XMLSchema.Definition definition;
+		private int state;
+		private int count;
+		private int[] counts;
+		private long seen;
+		private String text;
+
+		private void open(XMLSchema.Definition definition) {
+			this.definition = definition;
+			this.state = 0;
+			this.count = 0;
+			this.seen = 0L;
+			this.text = null;
+			if (!definition.ordered) {
+				if (counts == null || counts.length < definition.tags.length)
+					counts = new int[definition.tags.length];
+				else
+					Arrays.fill(counts, 0, definition.tags.length, 0);
+			}
+		}
+
+	}
+
+}
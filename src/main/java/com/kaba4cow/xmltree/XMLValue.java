@@ -0,0 +1,195 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+
+/**
+ * Parses and formats the typed values of attributes and text content. Integers and booleans are parsed straight from
+ * the characters of the string, ignoring surrounding whitespace, without allocating substrings; doubles are parsed by
+ * {@link Double#parseDouble(String)}, which trims the string itself. Typed values are serialized by appending the
+ * primitive to the output, without formatting it as a string first.
+ */
+final class XMLValue {
+
+	private XMLValue() {}
+
+	/**
+	 * Parses a decimal {@code int}.
+	 *
+	 * @param string the string to parse
+	 *
+	 * @return the parsed value
+	 *
+	 * @throws NumberFormatException if the string is {@code null} or not a decimal {@code int}
+	 */
+	static int parseInt(String string) {
+		long value = parseLong(string);
+		if ((int) value != value)
+			throw invalid(string);
+		return (int) value;
+	}
+
+	/**
+	 * Parses a decimal {@code long}.
+	 *
+	 * @param string the string to parse
+	 *
+	 * @return the parsed value
+	 *
+	 * @throws NumberFormatException if the string is {@code null} or not a decimal {@code long}
+	 */
+	static long parseLong(String string) {
+		if (string == null)
+			throw invalid(null);
+		int start = start(string);
+		int end = end(string, start);
+		boolean negative = false;
+		if (start < end && (string.charAt(start) == '-' || string.charAt(start) == '+')) {
+			negative = string.charAt(start) == '-';
+			start++;
+		}
+		if (start == end)
+			throw invalid(string);
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long result = 0L;
+		for (int i = start; i < end; i++) {
+			int digit = string.charAt(i) - '0';
+			if (digit < 0 || digit > 9 || result < limit / 10L)
+				throw invalid(string);
+			result *= 10L;
+			if (result < limit + digit)
+				throw invalid(string);
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Parses a {@code double} in any format accepted by {@link Double#parseDouble(String)}, which performs the
+	 * correctly rounded conversion and may allocate while doing so.
+	 *
+	 * @param string the string to parse
+	 *
+	 * @return the parsed value
+	 *
+	 * @throws NumberFormatException if the string is {@code null} or not a {@code double}
+	 */
+	static double parseDouble(String string) {
+		if (string == null)
+			throw invalid(null);
+		return Double.parseDouble(string);
+	}
+
+	/**
+	 * Parses a boolean, accepting {@code true}, {@code false}, {@code 1} and {@code 0} as XML Schema does.
+	 *
+	 * @param string the string to parse
+	 *
+	 * @return the parsed value
+	 *
+	 * @throws IllegalArgumentException if the string is {@code null} or not a boolean
+	 */
+	static boolean parseBoolean(String string) {
+		if (string != null) {
+			int start = start(string);
+			int length = end(string, start) - start;
+			if (length == 4 && string.regionMatches(start, "true", 0, 4)
+					|| length == 1 && string.charAt(start) == '1')
+				return true;
+			if (length == 5 && string.regionMatches(start, "false", 0, 5)
+					|| length == 1 && string.charAt(start) == '0')
+				return false;
+		}
+		throw new IllegalArgumentException(String.format("Invalid boolean \"%s\"", string));
+	}
+
+	/**
+	 * Parses the name of an enum constant.
+	 *
+	 * @param <E>    the enum type
+	 * @param type   the class of the enum type
+	 * @param string the string to parse
+	 *
+	 * @return the enum constant
+	 *
+	 * @throws IllegalArgumentException if the string is {@code null} or not the name of a constant of the type
+	 */
+	static <E extends Enum<E>> E parseEnum(Class<E> type, String string) {
+		if (string == null)
+			throw new IllegalArgumentException(String.format("Invalid %s \"null\"", type.getSimpleName()));
+		return Enum.valueOf(type, string.trim());
+	}
+
+	/**
+	 * Formats a typed value as it is written to XML.
+	 *
+	 * @param value the typed value
+	 *
+	 * @return the string representation of the value
+	 */
+	static String format(Object value) {
+		return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+	}
+
+	/**
+	 * Appends a typed value as it is written to XML. Numbers and booleans are appended through the primitive overloads of
+	 * {@link StringBuilder}, either to the output itself or to the scratch builder that is then copied to the output,
+	 * and enum constants by their name, so no string is created for the value.
+	 *
+	 * @param value   the typed value
+	 * @param output  the {@link Appendable} to write to
+	 * @param scratch the builder used when the output is not a {@link StringBuilder}
+	 *
+	 * @throws IOException if the output fails
+	 */
+	static void append(Object value, Appendable output, StringBuilder scratch) throws IOException {
+		if (output instanceof StringBuilder)
+			append(value, (StringBuilder) output);
+		else if (value instanceof Enum)
+			output.append(((Enum<?>) value).name());
+		else {
+			scratch.setLength(0);
+			append(value, scratch);
+			output.append(scratch);
+		}
+	}
+
+	/**
+	 * Appends a typed value as it is written to XML to a builder, without converting it to a string first.
+	 *
+	 * @param value   the typed value
+	 * @param builder the builder to append to
+	 */
+	static void append(Object value, StringBuilder builder) {
+		if (value instanceof Integer)
+			builder.append(((Integer) value).intValue());
+		else if (value instanceof Long)
+			builder.append(((Long) value).longValue());
+		else if (value instanceof Double)
+			builder.append(((Double) value).doubleValue());
+		else if (value instanceof Boolean)
+			builder.append(((Boolean) value).booleanValue());
+		else if (value instanceof Enum)
+			builder.append(((Enum<?>) value).name());
+		else
+			builder.append(value);
+	}
+
+	private static int start(String string) {
+		int start = 0;
+		while (start < string.length() && string.charAt(start) <= ' ')
+			start++;
+		return start;
+	}
+
+	private static int end(String string, int start) {
+		int end = string.length();
+		while (end > start && string.charAt(end - 1) <= ' ')
+			end--;
+		return end;
+	}
+
+	private static NumberFormatException invalid(String string) {
+		return new NumberFormatException(String.format("Invalid number \"%s\"", string));
+	}
+
+}
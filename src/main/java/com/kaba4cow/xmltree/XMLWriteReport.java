@@ -0,0 +1,75 @@
+package com.kaba4cow.xmltree;
+
+/**
+ * Measurements of a single serialized node.
+ * 
+ * @see XMLMetrics
+ */
+public final class XMLWriteReport {
+
+	private final long characters;
+	private final long bytes;
+	private final int elements;
+	private final int attributes;
+	private final long nanos;
+
+	XMLWriteReport(long characters, long bytes, int elements, int attributes, long nanos) {
+		this.characters = characters;
+		this.bytes = bytes;
+		this.elements = elements;
+		this.attributes = attributes;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * Retrieves the number of characters written.
+	 *
+	 * @return the number of characters
+	 */
+	public long getCharacters() {
+		return characters;
+	}
+
+	/**
+	 * Retrieves the number of bytes written.
+	 *
+	 * @return the number of bytes, or {@code -1} if the node was serialized to characters
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Retrieves the number of elements written.
+	 *
+	 * @return the number of elements
+	 */
+	public int getElements() {
+		return elements;
+	}
+
+	/**
+	 * Retrieves the number of attributes written.
+	 *
+	 * @return the number of attributes
+	 */
+	public int getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Retrieves the time spent serializing, including encoding and writing to the output.
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("XMLWriteReport [characters=%s, bytes=%s, elements=%s, attributes=%s, nanos=%s]",
+				characters, bytes, elements, attributes, nanos);
+	}
+
+}
@@ -0,0 +1,291 @@
+package com.kaba4cow.xmltree;
+
+import java.io.IOException;
+
+/**
+ * Serializes {@link XMLNode} trees into any {@link Appendable} without building intermediate strings. Values set
+ * through typed setters are appended as primitives and never formatted into strings. A writer reports to the metrics
+ * installed through {@link XMLNode#setMetrics(XMLMetrics)} at the time it was created.
+ * <p>
+ * The root of a tracked tree is rendered incrementally: clean subtrees are copied from the output of the previous
+ * serialization kept by its {@link XMLJournal}, and only dirty nodes are rendered again.
+ * <p>
+ * Elements can also be written piece by piece through {@link #start(String, Appendable, int)} and the methods following
+ * it, producing the same output as a node with the same content, so objects can be serialized without building nodes.
+ */
+class XMLWriter {
+
+	private final char indent;
+	private final XMLMetrics metrics;
+	private final boolean measured;
+	private final StringBuilder scratch;
+	private int elements;
+	private int attributes;
+	private long start;
+
+	public XMLWriter(char indent) {
+		this.indent = indent;
+		this.metrics = XMLNode.getMetrics();
+		this.measured = metrics != XMLMetrics.NONE;
+		this.scratch = new StringBuilder();
+		this.elements = 0;
+		this.attributes = 0;
+		this.start = 0L;
+	}
+
+	/**
+	 * Writes the XML representation of a node and its descendants.
+	 *
+	 * @param node   the node to write
+	 * @param output the {@link Appendable} to write to
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void write(XMLNode node, Appendable output) throws IOException {
+		begin();
+		XMLJournal journal = node.getJournal();
+		if (journal != null && journal.getRoot() == node)
+			output.append(rewrite(node, journal));
+		else
+			write(node, output, 0);
+	}
+
+	/**
+	 * Starts measuring the time of writing elements piece by piece.
+	 */
+	public void begin() {
+		if (measured)
+			start = System.nanoTime();
+	}
+
+	/**
+	 * Writes the indentation and the start of the opening tag of an element.
+	 *
+	 * @param tag    the tag of the element
+	 * @param output the {@link Appendable} to write to
+	 * @param level  the indentation level of the element
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void start(String tag, Appendable output, int level) throws IOException {
+		elements++;
+		indent(output, level);
+		output.append('<').append(tag);
+	}
+
+	/**
+	 * Writes an attribute of the element started last.
+	 *
+	 * @param name   the attribute name
+	 * @param value  the attribute value
+	 * @param output the {@link Appendable} to write to
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void attribute(String name, String value, Appendable output) throws IOException {
+		attributes++;
+		output.append(' ');
+		escape(name, output);
+		output.append("=\"");
+		escape(value, output);
+		output.append('"');
+	}
+
+	/**
+	 * Completes the opening tag of an element that has child elements, which follow separated by
+	 * {@link #separator(Appendable)} and are completed by {@link #end(String, Appendable, int)}.
+	 *
+	 * @param output the {@link Appendable} to write to
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void open(Appendable output) throws IOException {
+		output.append(">\n");
+	}
+
+	/**
+	 * Writes the separator between two child elements.
+	 *
+	 * @param output the {@link Appendable} to write to
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void separator(Appendable output) throws IOException {
+		output.append('\n');
+	}
+
+	/**
+	 * Writes the closing tag of an element that has child elements.
+	 *
+	 * @param tag    the tag of the element
+	 * @param output the {@link Appendable} to write to
+	 * @param level  the indentation level of the element
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void end(String tag, Appendable output, int level) throws IOException {
+		output.append('\n');
+		indent(output, level);
+		output.append("</").append(tag).append('>');
+	}
+
+	/**
+	 * Completes an element without child elements, with its text if it has any.
+	 *
+	 * @param tag    the tag of the element
+	 * @param text   the text of the element, or {@code null}
+	 * @param output the {@link Appendable} to write to
+	 *
+	 * @throws IOException if the output fails
+	 */
+	public void close(String tag, String text, Appendable output) throws IOException {
+		if (text != null && !text.trim().isEmpty()) {
+			output.append('>');
+			escape(text, output);
+			output.append("</").append(tag).append('>');
+		} else
+			output.append("/>");
+	}
+
+	/**
+	 * Reports the written node to the metrics, measuring the time since {@link #write(XMLNode, Appendable)} was called.
+	 *
+	 * @param characters the number of characters produced
+	 * @param bytes      the number of bytes produced, or {@code -1} if the output was not encoded
+	 */
+	public void report(long characters, long bytes) {
+		if (measured)
+			metrics.written(new XMLWriteReport(characters, bytes, elements, attributes, System.nanoTime() - start));
+	}
+
+	private void write(XMLNode node, Appendable output, int level) throws IOException {
+		if (open(node, output, level)) {
+			for (int i = 0; i < node.getNodeCount(); i++) {
+				if (i > 0)
+					separator(output);
+				write(node.getNode(i), output, level + 1);
+			}
+			end(node.getTag(), output, level);
+		}
+	}
+
+	private String rewrite(XMLNode root, XMLJournal journal) throws IOException {
+		String previous = journal.output(indent);
+		StringBuilder output = new StringBuilder(previous == null ? 16 : previous.length());
+		rewrite(root, output, 0, previous, previous == null ? -1 : 0);
+		String result = output.toString();
+		journal.rendered(indent, result);
+		return result;
+	}
+
+	/**
+	 * Renders a dirty node of a tracked tree, copying its clean children from the previous output.
+	 *
+	 * @param node     the node to render
+	 * @param output   the builder holding the new output
+	 * @param level    the indentation level of the node
+	 * @param previous the previous output of the tracked root
+	 * @param position the index of the node in the previous output, or {@code -1} if it was not part of it
+	 */
+	private void rewrite(XMLNode node, StringBuilder output, int level, String previous, int position)
+			throws IOException {
+		XMLJournal.Tracker tracker = node.tracker();
+		int start = output.length();
+		if (open(node, output, level)) {
+			for (int i = 0; i < node.getNodeCount(); i++) {
+				if (i > 0)
+					separator(output);
+				XMLNode child = node.getNode(i);
+				XMLJournal.Tracker track = child.tracker();
+				int location = position == -1 || track.length == -1 ? -1 : position + track.offset;
+				track.offset = output.length() - start;
+				if (location != -1 && !track.dirty)
+					output.append(previous, location, location + track.length);
+				else
+					rewrite(child, output, level + 1, previous, location);
+			}
+			end(node.getTag(), output, level);
+		}
+		tracker.length = output.length() - start;
+		tracker.dirty = false;
+	}
+
+	/**
+	 * Writes the opening tag of a node, or the whole node if it has no children.
+	 *
+	 * @param node   the node to write
+	 * @param output the {@link Appendable} to write to
+	 * @param level  the indentation level of the node
+	 *
+	 * @return {@code true} if the children and the closing tag have to be written, {@code false} otherwise
+	 */
+	private boolean open(XMLNode node, Appendable output, int level) throws IOException {
+		start(node.getTag(), output, level);
+		for (int i = 0; i < node.getAttributeCount(); i++) {
+			XMLAttribute attribute = node.getAttribute(i);
+			Object typed = attribute.typed();
+			if (typed == null)
+				attribute(attribute.getName(), attribute.getValue(), output);
+			else {
+				attributes++;
+				output.append(' ');
+				escape(attribute.getName(), output);
+				output.append("=\"");
+				XMLValue.append(typed, output, scratch);
+				output.append('"');
+			}
+		}
+		if (node.hasNodes()) {
+			open(output);
+			return true;
+		}
+		Object typed = node.typed();
+		if (typed == null)
+			close(node.getTag(), node.getText(), output);
+		else {
+			output.append('>');
+			XMLValue.append(typed, output, scratch);
+			output.append("</").append(node.getTag()).append('>');
+		}
+		return false;
+	}
+
+	private void indent(Appendable output, int level) throws IOException {
+		for (int i = 0; i < level; i++)
+			output.append(indent);
+	}
+
+	private static void escape(String string, Appendable output) throws IOException {
+		if (string == null) {
+			output.append("null");
+			return;
+		}
+		int start = 0;
+		for (int i = 0; i < string.length(); i++) {
+			String entity;
+			switch (string.charAt(i)) {
+				case '&':
+					entity = "&amp;";
+					break;
+				case '<':
+					entity = "&lt;";
+					break;
+				case '>':
+					entity = "&gt;";
+					break;
+				case '"':
+					entity = "&quot;";
+					break;
+				case '\'':
+					entity = "&apos;";
+					break;
+				default:
+					continue;
+			}
+			output.append(string, start, i).append(entity);
+			start = i + 1;
+		}
+		output.append(string, start, string.length());
+	}
+
+}
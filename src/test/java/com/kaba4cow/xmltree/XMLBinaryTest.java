@@ -0,0 +1,115 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class XMLBinaryTest {
+
+	private static final String DOCUMENT = "<root a=\"1\" b=\"é中\"><item id=\"1\">one</item><item id=\"2\"/>"
+			+ "<group><item id=\"3\">three &amp; more</item></group><empty/></root>";
+
+	@Test
+	public void streamRoundTrip() throws IOException {
+		XMLNode node = new XMLNode(DOCUMENT);
+		XMLNode read = XMLNode.readBinary(new ByteArrayInputStream(encode(node)));
+		assertEquals(node, read);
+		assertEquals(node.toXMLString(), read.toXMLString());
+	}
+
+	@Test
+	public void bufferRoundTrip() throws IOException {
+		XMLNode node = new XMLNode(DOCUMENT);
+		byte[] binary = encode(node);
+		ByteBuffer heap = ByteBuffer.wrap(Arrays.copyOf(binary, binary.length + 3));
+		assertEquals(node, XMLNode.readBinary(heap));
+		assertEquals(binary.length, heap.position());
+		ByteBuffer direct = ByteBuffer.allocateDirect(binary.length);
+		direct.put(binary).flip();
+		assertEquals(node, XMLNode.readBinary(direct));
+		assertEquals(0, direct.remaining());
+	}
+
+	@Test
+	public void nullTextIsPreserved() throws IOException {
+		XMLNode node = new XMLNode().setTag("a");
+		node.addNode("b").setText("");
+		node.addNode("c");
+		XMLNode read = XMLNode.readBinary(ByteBuffer.wrap(encode(node)));
+		assertNull(read.getText());
+		assertEquals("", read.getNode(0).getText());
+		assertNull(read.getNode(1).getText());
+	}
+
+	@Test
+	public void repeatedSymbolsAreWrittenOnce() throws IOException {
+		XMLNode node = new XMLNode().setTag("list");
+		for (int i = 0; i < 1000; i++)
+			node.addNode("element").addAttribute("attribute").setValue("v");
+		byte[] binary = encode(node);
+		assertTrue(binary.length < 1000 * ("element".length() + "attribute".length()));
+		assertEquals(node, XMLNode.readBinary(new ByteArrayInputStream(binary)));
+	}
+
+	@Test
+	public void longStringsAreReadFromSmallChunks() throws IOException {
+		char[] text = new char[100000];
+		Arrays.fill(text, 'x');
+		XMLNode node = new XMLNode().setTag("a").setText(new String(text));
+		byte[] binary = encode(node);
+		InputStream trickle = new ByteArrayInputStream(binary) {
+			@Override
+			public synchronized int read(byte[] bytes, int offset, int length) {
+				return super.read(bytes, offset, Math.min(length, 7));
+			}
+		};
+		assertEquals(node, XMLNode.readBinary(trickle));
+	}
+
+	@Test
+	public void badMagicAndVersionAreRejected() throws IOException {
+		byte[] binary = encode(new XMLNode(DOCUMENT));
+		byte[] magic = binary.clone();
+		magic[0] = 'Y';
+		assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(magic)));
+		assertThrows(IOException.class, () -> XMLNode.readBinary(new ByteArrayInputStream(magic)));
+		byte[] version = binary.clone();
+		version[3] = 2;
+		IOException exception = assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(version)));
+		assertTrue(exception.getMessage().contains("version 2"));
+	}
+
+	@Test
+	public void corruptInputIsRejected() throws IOException {
+		byte[] binary = encode(new XMLNode(DOCUMENT));
+		for (int length = 0; length < binary.length; length++) {
+			byte[] truncated = Arrays.copyOf(binary, length);
+			assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(truncated)));
+			assertThrows(IOException.class, () -> XMLNode.readBinary(new ByteArrayInputStream(truncated)));
+		}
+		byte[] negative = { 'X', 'T', 'B', 1, 1, 2, 'a', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0, 0 };
+		assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(negative)));
+		byte[] huge = { 'X', 'T', 'B', 1, 1, 2, 'a', (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'x' };
+		assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(huge)));
+		assertThrows(IOException.class, () -> XMLNode.readBinary(new ByteArrayInputStream(huge)));
+		byte[] symbol = { 'X', 'T', 'B', 1, 5 };
+		assertThrows(IOException.class, () -> XMLNode.readBinary(ByteBuffer.wrap(symbol)));
+	}
+
+	private static byte[] encode(XMLNode node) throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		node.writeBinary(stream);
+		return stream.toByteArray();
+	}
+
+}
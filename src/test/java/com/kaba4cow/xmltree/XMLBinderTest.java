@@ -0,0 +1,199 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class XMLBinderTest {
+
+	private static final XMLBinder<Chapter> CHAPTER = XMLBinder.builder("chapter", Chapter::new)
+			.attribute("title", Chapter::getTitle, Chapter::setTitle)
+			.text(Chapter::getBody, Chapter::setBody)
+			.build();
+
+	private static final XMLBinder<Book> BOOK = XMLBinder.builder("book", Book::new)
+			.attribute("id", XMLConverter.INT, Book::getId, Book::setId)
+			.attribute("genre", XMLConverter.forEnum(Genre.class), Book::getGenre, Book::setGenre)
+			.element("title", Book::getTitle, Book::setTitle)
+			.element("price", XMLConverter.DOUBLE, Book::getPrice, Book::setPrice)
+			.nodes(CHAPTER, Book::getChapters, Book::addChapter)
+			.build();
+
+	@Test
+	public void parseBindsAttributesTextAndChildren() {
+		Book book = BOOK.parse("<book id=\"7\" genre=\"SCIENCE\"><title>Atoms</title><price>12.5</price>"
+				+ "<chapter title=\"One\">first</chapter><chapter title=\"Two\"/></book>");
+		assertEquals(Integer.valueOf(7), book.getId());
+		assertEquals(Genre.SCIENCE, book.getGenre());
+		assertEquals("Atoms", book.getTitle());
+		assertEquals(12.5, book.getPrice(), 0.0);
+		assertEquals(2, book.getChapters().size());
+		assertEquals("One", book.getChapters().get(0).getTitle());
+		assertEquals("first", book.getChapters().get(0).getBody());
+		assertNull(book.getChapters().get(1).getBody());
+	}
+
+	@Test
+	public void unboundElementsAndAttributesAreSkipped() {
+		Book book = BOOK.parse("<book id=\"1\" extra=\"x\"><unknown><title>no</title><chapter/></unknown>"
+				+ "<title>yes</title></book>");
+		assertEquals("yes", book.getTitle());
+		assertEquals(0, book.getChapters().size());
+	}
+
+	@Test
+	public void streamingAndTreeBindingAgree() {
+		Random random = new Random(42L);
+		for (int i = 0; i < 200; i++) {
+			Book book = random(random);
+			String streamed = BOOK.toXMLString(book);
+			assertEquals(BOOK.toNode(book).toXMLString(), streamed);
+			assertEquals(streamed, BOOK.toXMLString(BOOK.parse(streamed)));
+			assertEquals(streamed, BOOK.toXMLString(BOOK.fromNode(new XMLNode(streamed))));
+		}
+	}
+
+	@Test
+	public void writingRetrievesEveryValueOnce() {
+		int[] calls = new int[1];
+		XMLBinder<Book> counted = XMLBinder.builder("book", Book::new)
+				.element("title", book -> {
+					calls[0]++;
+					return book.getTitle();
+				}, Book::setTitle)
+				.nodes(CHAPTER, book -> {
+					calls[0]++;
+					return book.getChapters();
+				}, Book::addChapter)
+				.build();
+		Book book = new Book();
+		book.setTitle("Title");
+		counted.toXMLString(book);
+		assertEquals(2, calls[0]);
+	}
+
+	@Test
+	public void rootWithOtherTagIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> BOOK.parse("<chapter/>"));
+		assertThrows(IllegalArgumentException.class, () -> BOOK.fromNode(new XMLNode("<chapter/>")));
+	}
+
+	@Test
+	public void duplicateBindingsAreRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> XMLBinder.builder("book", Book::new).element("title", Book::getTitle, Book::setTitle)
+						.element("title", Book::getTitle, Book::setTitle));
+	}
+
+	private static Book random(Random random) {
+		Book book = new Book();
+		if (random.nextBoolean())
+			book.setId(random.nextInt());
+		if (random.nextBoolean())
+			book.setGenre(Genre.values()[random.nextInt(Genre.values().length)]);
+		if (random.nextBoolean())
+			book.setTitle(word(random));
+		if (random.nextBoolean())
+			book.setPrice(random.nextInt(10000) / 100.0);
+		for (int i = random.nextInt(4); i > 0; i--) {
+			Chapter chapter = new Chapter();
+			if (random.nextBoolean())
+				chapter.setTitle(word(random));
+			if (random.nextBoolean())
+				chapter.setBody(word(random));
+			book.addChapter(chapter);
+		}
+		return book;
+	}
+
+	private static String word(Random random) {
+		char[] chars = new char[1 + random.nextInt(8)];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) ('a' + random.nextInt(26));
+		return new String(chars);
+	}
+
+	private enum Genre {
+		FICTION, SCIENCE
+	}
+
+	private static class Chapter {
+
+		private String title;
+		private String body;
+
+		String getTitle() {
+			return title;
+		}
+
+		void setTitle(String title) {
+			this.title = title;
+		}
+
+		String getBody() {
+			return body;
+		}
+
+		void setBody(String body) {
+			this.body = body;
+		}
+
+	}
+
+	private static class Book {
+
+		private Integer id;
+		private Genre genre;
+		private String title;
+		private Double price;
+		private final List<Chapter> chapters = new ArrayList<>();
+
+		Integer getId() {
+			return id;
+		}
+
+		void setId(Integer id) {
+			this.id = id;
+		}
+
+		Genre getGenre() {
+			return genre;
+		}
+
+		void setGenre(Genre genre) {
+			this.genre = genre;
+		}
+
+		String getTitle() {
+			return title;
+		}
+
+		void setTitle(String title) {
+			this.title = title;
+		}
+
+		Double getPrice() {
+			return price;
+		}
+
+		void setPrice(Double price) {
+			this.price = price;
+		}
+
+		List<Chapter> getChapters() {
+			return chapters;
+		}
+
+		void addChapter(Chapter chapter) {
+			chapters.add(chapter);
+		}
+
+	}
+
+}
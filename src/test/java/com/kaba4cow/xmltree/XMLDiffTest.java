@@ -0,0 +1,142 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class XMLDiffTest {
+
+	@Test
+	public void equalTreesGiveAnEmptyPatch() {
+		XMLNode node = new XMLNode("<a x=\"1\"><b>t</b><c/></a>");
+		assertTrue(XMLDiff.diff(node, node.deepCopy()).isEmpty());
+	}
+
+	@Test
+	public void insertedAndDeletedChildrenArePatched() {
+		XMLNode source = new XMLNode("<a><b/><c/><d/></a>");
+		XMLNode target = new XMLNode("<a><b/><e><f/></e><d/><g/></a>");
+		XMLPatch patch = XMLDiff.diff(source, target);
+		assertEquals(1, count(patch, XMLPatch.Type.DELETE_NODE));
+		assertEquals(2, count(patch, XMLPatch.Type.INSERT_NODE));
+		assertEquals(0, count(patch, XMLPatch.Type.MOVE_NODE));
+		assertRoundTrip(source, target);
+	}
+
+	@Test
+	public void movedChildrenAreMovedOnce() {
+		XMLNode source = new XMLNode("<a><b/><c/><d/><e/><f/></a>");
+		XMLPatch rotated = XMLDiff.diff(source, new XMLNode("<a><c/><d/><e/><f/><b/></a>"));
+		assertEquals(1, rotated.size());
+		assertEquals(1, count(rotated, XMLPatch.Type.MOVE_NODE));
+		XMLPatch swapped = XMLDiff.diff(source, new XMLNode("<a><f/><c/><d/><e/><b/></a>"));
+		assertEquals(2, swapped.size());
+		assertRoundTrip(source, new XMLNode("<a><f/><e/><d/><c/><b/></a>"));
+	}
+
+	@Test
+	public void attributeAndTextChangesArePatched() {
+		XMLNode source = new XMLNode("<a x=\"1\" y=\"2\"><b>old</b></a>");
+		XMLNode target = new XMLNode("<a x=\"3\" z=\"4\"><b>new</b></a>");
+		XMLPatch patch = XMLDiff.diff(source, target);
+		assertEquals(1, count(patch, XMLPatch.Type.REMOVE_ATTRIBUTE));
+		assertEquals(2, count(patch, XMLPatch.Type.SET_ATTRIBUTE));
+		assertEquals(1, count(patch, XMLPatch.Type.SET_TEXT));
+		assertRoundTrip(source, target);
+		assertRoundTrip(source, new XMLNode("<a y=\"2\" x=\"1\"><b>old</b></a>"));
+	}
+
+	@Test
+	public void patchLeavesTheTargetAndPatchUntouched() {
+		XMLNode source = new XMLNode("<a><b><c>1</c></b></a>");
+		XMLNode target = new XMLNode("<a><d/><b><c>2</c><e/></b></a>");
+		XMLPatch patch = XMLDiff.diff(source, target);
+		XMLNode first = XMLDiff.apply(patch, source.deepCopy());
+		first.getNode(0).setTag("changed");
+		assertEquals(target, XMLDiff.apply(patch, source.deepCopy()));
+		assertEquals(new XMLNode("<a><b><c>1</c></b></a>"), source);
+	}
+
+	@Test
+	public void randomEditsRoundTrip() {
+		Random random = new Random(7L);
+		for (int i = 0; i < 300; i++) {
+			XMLNode source = random(random, 4);
+			XMLNode target = source.deepCopy();
+			for (int k = random.nextInt(6); k >= 0; k--)
+				edit(random, target);
+			assertRoundTrip(source, target);
+			assertRoundTrip(target, source);
+		}
+	}
+
+	@Test
+	public void reorderedWideListIsDiffed() {
+		XMLNode source = new XMLNode().setTag("a");
+		for (int i = 0; i < 20000; i++)
+			source.addNode("n").setInt(i);
+		XMLNode target = source.deepCopy();
+		Random random = new Random(3L);
+		for (int i = target.getNodeCount() - 1; i > 0; i--)
+			target.moveNode(random.nextInt(i + 1), i);
+		assertRoundTrip(source, target);
+	}
+
+	private static void assertRoundTrip(XMLNode source, XMLNode target) {
+		XMLPatch patch = XMLDiff.diff(source, target);
+		assertEquals(target, XMLDiff.apply(patch, source.deepCopy()));
+	}
+
+	private static int count(XMLPatch patch, XMLPatch.Type type) {
+		int count = 0;
+		for (XMLPatch.Operation operation : patch.getOperations())
+			if (operation.getType() == type)
+				count++;
+		return count;
+	}
+
+	private static XMLNode random(Random random, int depth) {
+		XMLNode node = new XMLNode().setTag(String.valueOf((char) ('a' + random.nextInt(4))));
+		if (random.nextInt(3) == 0)
+			node.setText(String.valueOf(random.nextInt(5)));
+		for (int i = random.nextInt(3); i > 0; i--)
+			node.getOrAddAttribute("x" + random.nextInt(3)).setValue(String.valueOf(random.nextInt(3)));
+		if (depth > 0)
+			for (int i = random.nextInt(5); i > 0; i--)
+				node.insertNode(node.getNodeCount(), random(random, depth - 1));
+		return node;
+	}
+
+	private static void edit(Random random, XMLNode root) {
+		XMLNode node = root;
+		while (node.hasNodes() && random.nextBoolean())
+			node = node.getNode(random.nextInt(node.getNodeCount()));
+		switch (random.nextInt(6)) {
+			case 0:
+				node.insertNode(random.nextInt(node.getNodeCount() + 1), random(random, 2));
+				break;
+			case 1:
+				if (node.hasNodes())
+					node.removeNode(random.nextInt(node.getNodeCount()));
+				break;
+			case 2:
+				if (node.hasNodes())
+					node.moveNode(random.nextInt(node.getNodeCount()), random.nextInt(node.getNodeCount()));
+				break;
+			case 3:
+				node.getOrAddAttribute("x" + random.nextInt(4)).setValue(String.valueOf(random.nextInt(3)));
+				break;
+			case 4:
+				if (node.getAttributeCount() > 0)
+					node.removeAttribute(node.getAttribute(random.nextInt(node.getAttributeCount())).getName());
+				break;
+			default:
+				node.setText(random.nextBoolean() ? null : String.valueOf(random.nextInt(5)));
+				break;
+		}
+	}
+
+}
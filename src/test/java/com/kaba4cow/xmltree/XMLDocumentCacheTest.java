@@ -0,0 +1,126 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class XMLDocumentCacheTest {
+
+	private static final String DOCUMENT = "<a id=\"1\"><b>text</b><b>more text</b></a>";
+
+	@Test
+	public void leastRecentlyUsedDocumentIsEvicted() throws IOException {
+		Path directory = Files.createTempDirectory("xml-cache");
+		try {
+			Path a = write(directory, "a.xml", "<a><x/></a>");
+			Path b = write(directory, "b.xml", "<b><x/></b>");
+			Path c = write(directory, "c.xml", "<c><x/></c>");
+			XMLDocumentCache cache = XMLDocumentCache.byNodeCount(4L);
+			cache.get(a);
+			cache.get(b);
+			cache.get(a);
+			cache.get(c);
+			assertEquals(2, cache.size());
+			assertEquals(1L, cache.getEvictionCount());
+			long misses = cache.getMissCount();
+			assertEquals("a", cache.get(a).getTag());
+			assertEquals(misses, cache.getMissCount());
+			assertEquals("b", cache.get(b).getTag());
+			assertEquals(misses + 1L, cache.getMissCount());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void encodedSizeIsTheRetainedBinarySize() throws IOException {
+		Path directory = Files.createTempDirectory("xml-cache");
+		try {
+			Path a = write(directory, "a.xml", DOCUMENT);
+			ByteArrayOutputStream binary = new ByteArrayOutputStream();
+			new XMLNode(DOCUMENT).writeBinary(binary);
+			XMLDocumentCache cache = XMLDocumentCache.byEncodedSize(1L << 20);
+			cache.get(a);
+			assertEquals(binary.size(), cache.getWeight());
+			cache.invalidate(a);
+			assertEquals(0L, cache.getWeight());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void estimatedSizeIsTheEstimateOfTheStatistics() throws IOException {
+		Path directory = Files.createTempDirectory("xml-cache");
+		try {
+			Path a = write(directory, "a.xml", DOCUMENT);
+			XMLDocumentCache cache = XMLDocumentCache.byEstimatedSize(1L << 20);
+			cache.get(a);
+			assertEquals(new XMLNode(DOCUMENT).statistics().getEstimatedSize(), cache.getWeight());
+			cache.clear();
+			assertEquals(0L, cache.getWeight());
+			assertEquals(0, cache.size());
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public void concurrentLookupsStayWithinCapacity() throws Exception {
+		Path directory = Files.createTempDirectory("xml-cache");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Path> paths = new ArrayList<>();
+			for (int i = 0; i < 64; i++)
+				paths.add(write(directory, i + ".xml", "<d" + i + "><x/><y/></d" + i + ">"));
+			XMLDocumentCache cache = XMLDocumentCache.byNodeCount(60L);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				int seed = t;
+				results.add(executor.submit(() -> {
+					Random random = new Random(seed);
+					for (int i = 0; i < 2000; i++) {
+						int index = random.nextInt(paths.size());
+						assertEquals("d" + index, cache.get(paths.get(index)).getTag());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results)
+				result.get();
+			assertEquals(3L * cache.size(), cache.getWeight());
+			assertTrue(cache.getWeight() <= 60L);
+			assertEquals(8000L, cache.getHitCount() + cache.getMissCount());
+		} finally {
+			executor.shutdown();
+			delete(directory);
+		}
+	}
+
+	private static Path write(Path directory, String name, String content) throws IOException {
+		return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator)
+				Files.delete(file);
+		}
+		Files.delete(directory);
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class XMLJournalTest {
+
+	@Test
+	public void incrementalOutputEqualsFullOutputAfterMutations() {
+		Random random = new Random(11L);
+		for (int round = 0; round < 20; round++) {
+			XMLNode root = random(random, 4);
+			root.startTracking();
+			assertRendered(root, '\t');
+			for (int i = 0; i < 100; i++) {
+				for (int k = random.nextInt(3); k >= 0; k--)
+					mutate(random, root);
+				assertRendered(root, random.nextInt(4) == 0 ? ' ' : '\t');
+			}
+		}
+	}
+
+	@Test
+	public void indentChangeRendersEverythingAgain() {
+		XMLNode root = new XMLNode("<a><b><c x=\"1\"/></b><d>t</d></a>");
+		root.startTracking();
+		assertRendered(root, '\t');
+		assertRendered(root, ' ');
+		root.getNode(0).getNode(0).getAttribute("x").setValue("2");
+		assertRendered(root, ' ');
+		assertRendered(root, '\t');
+	}
+
+	@Test
+	public void channelOutputUsesTheJournal() throws Exception {
+		XMLNode root = new XMLNode("<a><b>é</b><c/></a>");
+		root.startTracking();
+		root.toXMLString();
+		root.getNode(1).setText("中");
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		root.write(Channels.newChannel(stream));
+		assertEquals(root.deepCopy().toXMLString(), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+		assertFalse(root.isDirty());
+	}
+
+	@Test
+	public void changesAreRecorded() {
+		XMLNode root = new XMLNode("<a x=\"1\"><b/></a>");
+		XMLJournal journal = root.startTracking();
+		assertSame(journal, root.startTracking());
+		assertSame(journal, root.getNode(0).getJournal());
+		root.getAttribute("x").setName("y");
+		root.getAttribute("y").setInt(5);
+		root.getNode(0).setText("t");
+		root.addNode("c");
+		assertEquals(4, journal.size());
+		assertEquals(XMLJournal.Type.RENAME_ATTRIBUTE, journal.getChanges().get(0).getType());
+		assertEquals("5", journal.getChanges().get(1).getValue());
+		assertSame(root.getNode(0), journal.getChanges().get(2).getNode());
+		assertEquals(XMLJournal.Type.ADD_NODE, journal.getChanges().get(3).getType());
+		assertTrue(journal.clear().isEmpty());
+		assertThrows(IllegalStateException.class, () -> root.getNode(0).startTracking());
+	}
+
+	@Test
+	public void stopTrackingReleasesTheJournal() {
+		XMLNode root = new XMLNode("<a><b><c/></b></a>");
+		XMLJournal journal = root.startTracking();
+		root.toXMLString();
+		root.getNode(0).stopTracking();
+		assertSame(journal, root.getNode(0).getJournal());
+		root.stopTracking();
+		assertNull(root.getJournal());
+		assertNull(root.getNode(0).getNode(0).getJournal());
+		assertTrue(root.isDirty());
+		root.getNode(0).getNode(0).setTag("d");
+		assertEquals("<a>\n\t<b>\n\t\t<d/>\n\t</b>\n</a>", root.toXMLString());
+		assertEquals(0, journal.size());
+		root.getNode(0).startTracking();
+		root.getNode(0).toXMLString();
+		root.startTracking();
+		assertSame(root.getJournal(), root.getNode(0).getJournal());
+		root.getNode(0).getNode(0).setText("x");
+		assertRendered(root, '\t');
+	}
+
+	private static void assertRendered(XMLNode root, char indent) {
+		XMLNode copy = root.deepCopy();
+		assertNull(copy.getJournal());
+		assertEquals(copy.toXMLString(indent), root.toXMLString(indent));
+		assertFalse(root.isDirty());
+	}
+
+	private static XMLNode random(Random random, int depth) {
+		XMLNode node = new XMLNode().setTag(String.valueOf((char) ('a' + random.nextInt(4))));
+		if (random.nextInt(3) == 0)
+			node.setText("t" + random.nextInt(5));
+		for (int i = random.nextInt(3); i > 0; i--)
+			node.getOrAddAttribute("x" + random.nextInt(3)).setValue(String.valueOf(random.nextInt(3)));
+		if (depth > 0)
+			for (int i = random.nextInt(4); i > 0; i--)
+				node.insertNode(node.getNodeCount(), random(random, depth - 1));
+		return node;
+	}
+
+	private static void mutate(Random random, XMLNode root) {
+		XMLNode node = root;
+		while (node.hasNodes() && random.nextInt(3) != 0)
+			node = node.getNode(random.nextInt(node.getNodeCount()));
+		switch (random.nextInt(12)) {
+			case 0:
+				node.setText(random.nextBoolean() ? null : "t" + random.nextInt(5));
+				break;
+			case 1:
+				node.setTag(String.valueOf((char) ('a' + random.nextInt(4))));
+				break;
+			case 2:
+				node.getOrAddAttribute("x" + random.nextInt(4)).setValue("v" + random.nextInt(3));
+				break;
+			case 3:
+				if (node.getAttributeCount() > 0)
+					node.getAttribute(random.nextInt(node.getAttributeCount())).setName("y" + random.nextInt(100));
+				break;
+			case 4:
+				if (node.getAttributeCount() > 0)
+					node.removeAttribute(node.getAttribute(random.nextInt(node.getAttributeCount())).getName());
+				break;
+			case 5:
+				node.insertNode(random.nextInt(node.getNodeCount() + 1), random(random, 2));
+				break;
+			case 6:
+				if (node.hasNodes())
+					node.removeNode(random.nextInt(node.getNodeCount()));
+				break;
+			case 7:
+				if (node.hasNodes())
+					node.moveNode(random.nextInt(node.getNodeCount()), random.nextInt(node.getNodeCount()));
+				break;
+			case 8:
+				node.setDouble(random.nextInt(100) / 8.0);
+				break;
+			case 9:
+				node.getOrAddAttribute("n").setEnum(random.nextBoolean() ? TimeUnit.SECONDS : TimeUnit.DAYS);
+				break;
+			case 10:
+				node.sortNodes();
+				node.sortAttributes();
+				break;
+			default:
+				if (random.nextInt(4) == 0)
+					node.clearNodes();
+				else
+					node.addNode("e").addAttribute("z").setLong(random.nextLong());
+				break;
+		}
+	}
+
+}
@@ -0,0 +1,167 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class XMLNodeTest {
+
+	@Test
+	public void attributeChangesInvalidateCachedHashCodes() {
+		XMLNode root = new XMLNode("<a><b x=\"1\" y=\"2\"/></a>");
+		XMLNode copy = root.deepCopy();
+		assertEquals(copy, root);
+		XMLAttribute attribute = root.getNode(0).getAttribute("x");
+		attribute.setValue("3");
+		assertChanged(root, copy);
+		attribute.setValue("1");
+		assertEquals(copy, root);
+		attribute.setName("z");
+		assertChanged(root, copy);
+		attribute.setName("x");
+		assertEquals(copy, root);
+		attribute.setInt(1);
+		assertEquals(copy, root);
+		attribute.setDouble(1.5);
+		assertChanged(root, copy);
+		attribute.setEnum(TimeUnit.DAYS);
+		assertChanged(root, copy);
+	}
+
+	@Test
+	public void typedTextChangesInvalidateCachedHashCodes() {
+		XMLNode root = new XMLNode("<a><b>true</b></a>");
+		XMLNode copy = root.deepCopy();
+		assertEquals(copy, root);
+		root.getNode(0).setBoolean(false);
+		assertChanged(root, copy);
+		root.getNode(0).setBoolean(true);
+		assertEquals(copy, root);
+		root.getNode(0).setLong(7L);
+		assertChanged(root, copy);
+		copy.getNode(0).setInt(7);
+		assertEquals(copy, root);
+	}
+
+	@Test
+	public void insertedAndMovedNodesInvalidateCachedHashCodes() {
+		XMLNode root = new XMLNode("<a><b/><c><d/></c><e/></a>");
+		XMLNode copy = root.deepCopy();
+		root.moveNode(0, 2);
+		assertChanged(root, copy);
+		root.moveNode(2, 0);
+		assertEquals(copy, root);
+		XMLNode inserted = root.getNode(1).insertNode(0, root.getNode(2));
+		assertChanged(root, copy);
+		assertEquals(root.getNode(2), inserted);
+		inserted.setTag("f");
+		assertNotEquals(root.getNode(2), inserted);
+		root.getNode(1).removeNode(0);
+		assertEquals(copy, root);
+	}
+
+	@Test
+	public void deepCopiesStayIndependent() {
+		Random random = new Random(5L);
+		XMLNode root = new XMLNode().setTag("a");
+		for (int i = 0; i < 500; i++) {
+			XMLNode copy = root.deepCopy();
+			assertEquals(root, copy);
+			assertEquals(reference(root), copy.hashCode());
+			mutate(random, random.nextBoolean() ? root : copy);
+			assertEquals(reference(root), root.hashCode());
+			assertEquals(reference(copy), copy.hashCode());
+			assertEquals(reference(root) == reference(copy) && root.toXMLString().equals(copy.toXMLString()),
+					root.equals(copy));
+			if (random.nextInt(4) == 0)
+				root = copy;
+		}
+	}
+
+	@Test
+	public void deepTreesDoNotOverflowTheStack() {
+		XMLNode root = new XMLNode().setTag("a");
+		XMLNode leaf = root;
+		for (int i = 0; i < 200000; i++)
+			leaf = leaf.addNode("b").setInt(i);
+		XMLNode copy = root.deepCopy();
+		assertEquals(root.hashCode(), copy.hashCode());
+		assertEquals(root, copy);
+		leaf.getOrAddAttribute("x").setValue("1");
+		assertNotEquals(copy, root);
+		assertEquals(root, root.deepCopy());
+		XMLNode copyLeaf = copy;
+		while (copyLeaf.hasNodes())
+			copyLeaf = copyLeaf.getNode(0);
+		copyLeaf.getOrAddAttribute("x").setInt(1);
+		assertEquals(root, copy);
+	}
+
+	private static void assertChanged(XMLNode node, XMLNode original) {
+		assertEquals(reference(node), node.hashCode());
+		assertFalse(node.equals(original));
+		assertFalse(original.equals(node));
+		assertTrue(node.equals(node.deepCopy()));
+		assertNull(node.deepCopy().getParent());
+	}
+
+	/**
+	 * Computes the structural hash code of a tree without using any cached value.
+	 */
+	private static int reference(XMLNode node) {
+		int result = 31 * (31 * Objects.hashCode(node.getTag()) + Objects.hashCode(node.getText()))
+				+ node.getAttributes().hashCode();
+		for (XMLNode child : node.getNodes())
+			result = 31 * result + reference(child);
+		return result == 0 ? 1 : result;
+	}
+
+	private static void mutate(Random random, XMLNode root) {
+		XMLNode node = root;
+		while (node.hasNodes() && random.nextInt(3) != 0)
+			node = node.getNode(random.nextInt(node.getNodeCount()));
+		XMLAttribute attribute = node.getAttributeCount() == 0 ? null
+				: node.getAttribute(random.nextInt(node.getAttributeCount()));
+		switch (random.nextInt(9)) {
+			case 0:
+				node.setText(random.nextBoolean() ? null : "t" + random.nextInt(3));
+				break;
+			case 1:
+				node.setInt(random.nextInt(3));
+				break;
+			case 2:
+				node.setEnum(random.nextBoolean() ? TimeUnit.SECONDS : TimeUnit.DAYS);
+				break;
+			case 3:
+				node.getOrAddAttribute("x" + random.nextInt(3)).setValue(String.valueOf(random.nextInt(3)));
+				break;
+			case 4:
+				if (attribute != null && node.getAttribute("y") == null)
+					attribute.setName("y");
+				break;
+			case 5:
+				if (attribute != null)
+					attribute.setDouble(random.nextInt(3) / 2.0);
+				break;
+			case 6:
+				node.insertNode(random.nextInt(node.getNodeCount() + 1), new XMLNode("<c x=\"1\"><d>2</d></c>"));
+				break;
+			case 7:
+				if (node.hasNodes())
+					node.moveNode(random.nextInt(node.getNodeCount()), random.nextInt(node.getNodeCount()));
+				break;
+			default:
+				node.addNode(String.valueOf((char) ('a' + random.nextInt(3))));
+				break;
+		}
+	}
+
+}
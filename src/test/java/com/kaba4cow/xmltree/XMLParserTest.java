@@ -0,0 +1,89 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class XMLParserTest {
+
+	@Test
+	public void quotedValuesKeepWhitespaceAndOtherQuotes() {
+		XMLNode node = new XMLNode("<a x=\"one two\" y='say \"hi\"' z=\"it's\" w=\"a>b\"/>");
+		assertEquals("[x=one two, y=say \"hi\", z=it's, w=a>b]", attributes(node));
+	}
+
+	@Test
+	public void unquotedValuesAndSpacedAssignmentsAreScanned() {
+		assertEquals("[x=1, y=2, z=3]", attributes(new XMLNode("<a x = \"1\"\n\ty=2 flag z= '3' />")));
+		assertEquals("[x=1]", attributes(new XMLNode("<a x=1/>")));
+		assertEquals("[x=]", attributes(new XMLNode("<a x=\"\"></a>")));
+	}
+
+	@Test
+	public void repeatedAttributesKeepFirstPositionAndLastValue() {
+		assertEquals("[x=3, y=2]", attributes(new XMLNode("<a x=\"1\" y=\"2\" x=\"3\"/>")));
+		StringBuilder wide = new StringBuilder("<a");
+		for (int i = 0; i < 40; i++)
+			wide.append(" a").append(i % 20).append("=\"").append(i).append('"');
+		XMLNode node = new XMLNode(wide.append("/>").toString());
+		assertEquals(20, node.getAttributeCount());
+		for (int i = 0; i < 20; i++) {
+			assertEquals("a" + i, node.getAttribute(i).getName());
+			assertEquals(String.valueOf(i + 20), node.getAttribute(i).getValue());
+		}
+	}
+
+	@Test
+	public void markupAndSelfClosingTagsAreRecognized() {
+		XMLNode node = new XMLNode("<?xml version=\"1.0\"?><!-- comment --><a><b/><c /><d>t<!-- x -->u</d></a>");
+		assertEquals("a", node.getTag());
+		assertEquals(3, node.getNodeCount());
+		assertEquals("c", node.getNode(1).getTag());
+		assertEquals("u", node.getNode(2).getText());
+		assertNull(node.getNode(0).getText());
+	}
+
+	@Test
+	public void namesAreShared() {
+		XMLNode first = new XMLNode("<item name=\"1\"/>");
+		XMLNode second = new XMLNode("<item name=\"2\"/>");
+		assertSame(first.getTag(), second.getTag());
+		assertSame(first.getAttribute(0).getName(), second.getAttribute(0).getName());
+	}
+
+	@Test
+	public void treeHandlerAndChunkedInputAgree() {
+		String document = "<a x='1 \"2\"' y = \"3 4\" x=\"5 6\"><b z=7/></a>";
+		XMLNode tree = new XMLNode(document);
+		assertEquals("[x=5 6, y=3 4]", attributes(tree));
+		String[] bound = XMLBinder.builder("a", () -> new String[1])
+				.attribute("x", values -> values[0], (values, value) -> values[0] = value).build().parse(document);
+		assertEquals("5 6", bound[0]);
+		XMLPushParser parser = new XMLPushParser();
+		for (byte b : document.getBytes(StandardCharsets.UTF_8))
+			parser.feed(new byte[] { b });
+		assertEquals(tree, parser.finish());
+	}
+
+	@Test
+	public void unmatchedClosingTagIsRejected() {
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new XMLNode("<a/></b>"));
+		assertEquals("Unexpected closing tag \"</b>\"", exception.getMessage());
+	}
+
+	private static String attributes(XMLNode node) {
+		StringBuilder builder = new StringBuilder("[");
+		for (XMLAttribute attribute : node.getAttributes()) {
+			if (builder.length() > 1)
+				builder.append(", ");
+			builder.append(attribute.getName()).append('=').append(attribute.getValue());
+		}
+		return builder.append(']').toString();
+	}
+
+}
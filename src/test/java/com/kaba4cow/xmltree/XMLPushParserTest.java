@@ -0,0 +1,140 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class XMLPushParserTest {
+
+	private static final String DOCUMENT = "<données clé=\"é中😀\"><!-- ü --><texte>Grüße, 世界 🌍</texte>"
+			+ "<vide a=\"ß\" b='€'/><?pi ä?><suite>ÿ<x>中文</x></suite></données>";
+
+	@Test
+	public void randomChunksSplittingCharactersAreDecoded() {
+		XMLNode expected = new XMLNode(DOCUMENT);
+		byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+		Random random = new Random(3L);
+		XMLPushParser parser = new XMLPushParser();
+		List<String> tags = new ArrayList<>();
+		parser.onElement(node -> tags.add(node.getTag()));
+		for (int round = 0; round < 500; round++) {
+			tags.clear();
+			for (int offset = 0; offset < bytes.length;) {
+				int length = Math.min(bytes.length - offset, random.nextInt(round % 2 == 0 ? 3 : 17));
+				if (random.nextBoolean())
+					parser.feed(bytes, offset, length);
+				else
+					parser.feed(ByteBuffer.wrap(bytes.clone(), offset, length).slice());
+				offset += length;
+			}
+			assertEquals(expected, parser.finish());
+			assertEquals("[texte, vide, x, suite, données]", tags.toString());
+		}
+	}
+
+	@Test
+	public void everySplitOfEveryCharacterIsDecoded() {
+		XMLNode expected = new XMLNode(DOCUMENT);
+		byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+		XMLPushParser parser = new XMLPushParser();
+		for (int first = 0; first <= bytes.length; first++)
+			for (int second = first; second <= Math.min(bytes.length, first + 4); second++) {
+				parser.feed(bytes, 0, first);
+				parser.feed(bytes, first, second - first);
+				parser.feed(bytes, second, bytes.length - second);
+				assertEquals(expected, parser.finish());
+			}
+	}
+
+	@Test
+	public void tricklingChannelsAreDecoded() throws IOException {
+		byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+		Random random = new Random(9L);
+		for (int round = 0; round < 50; round++)
+			assertEquals(new XMLNode(DOCUMENT), XMLNode.read(trickle(bytes, random)));
+	}
+
+	@Test
+	public void truncatedCharactersAreReplaced() {
+		byte[] bytes = "<a>中</a>".getBytes(StandardCharsets.UTF_8);
+		XMLPushParser parser = new XMLPushParser();
+		parser.feed(bytes, 0, 5);
+		parser.feed(bytes, 6, bytes.length - 6);
+		assertEquals("\uFFFD", parser.finish().getText());
+		parser.feed(bytes, 0, 5);
+		parser.feed(bytes, 5, bytes.length - 5);
+		assertEquals("中", parser.finish().getText());
+	}
+
+	@Test
+	public void incompleteDocumentsAreDiscarded() {
+		XMLSchema schema = XMLSchema.builder("a").element("a", element -> element.child("b", 0, XMLSchema.UNBOUNDED))
+				.build();
+		XMLPushParser parser = new XMLPushParser().setSchema(schema);
+		List<String> tags = new ArrayList<>();
+		parser.onElement(node -> tags.add(node.getTag()));
+		byte[] bytes = "<a><b>é</b><b>中".getBytes(StandardCharsets.UTF_8);
+		parser.feed(bytes, 0, bytes.length - 1);
+		assertThrows(IllegalArgumentException.class, parser::finish);
+		assertEquals("[b]", tags.toString());
+		tags.clear();
+		parser.feed("<a><b/></a>".getBytes(StandardCharsets.UTF_8));
+		assertEquals(new XMLNode("<a><b/></a>"), parser.finish());
+		assertEquals("[b, a]", tags.toString());
+	}
+
+	@Test
+	public void failedChunksDiscardTheDocument() {
+		XMLPushParser parser = new XMLPushParser();
+		parser.feed("<a>".getBytes(StandardCharsets.UTF_8));
+		byte[] bytes = "é</a></b>".getBytes(StandardCharsets.UTF_8);
+		parser.feed(bytes, 0, 1);
+		assertThrows(IllegalArgumentException.class, () -> parser.feed(bytes, 1, bytes.length - 1));
+		parser.feed("<d>ü</d>".getBytes(StandardCharsets.UTF_8));
+		XMLNode document = parser.finish();
+		assertEquals("d", document.getTag());
+		assertEquals("ü", document.getText());
+		XMLNode empty = parser.finish();
+		assertNull(empty.getTag());
+		assertFalse(empty.hasNodes());
+	}
+
+	private static ReadableByteChannel trickle(byte[] bytes, Random random) {
+		ByteBuffer source = ByteBuffer.wrap(bytes);
+		return new ReadableByteChannel() {
+
+			@Override
+			public int read(ByteBuffer buffer) {
+				if (!source.hasRemaining())
+					return -1;
+				int count = Math.min(Math.min(buffer.remaining(), source.remaining()), 1 + random.nextInt(4));
+				ByteBuffer slice = source.slice();
+				slice.limit(count);
+				buffer.put(slice);
+				source.position(source.position() + count);
+				return count;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {}
+
+		};
+	}
+
+}
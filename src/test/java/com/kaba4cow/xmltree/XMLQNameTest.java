@@ -0,0 +1,114 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class XMLQNameTest {
+
+	@Test
+	public void parsedNamesAreResolvedAgainstDeclarations() {
+		XMLNode root = new XMLNode("<p:a xmlns:p=\"urn:x\" xmlns=\"urn:d\"><b p:id=\"1\" id=\"2\"/></p:a>");
+		XMLNode child = root.getNode(0);
+		assertSame(XMLQName.of("urn:x", "a"), root.getQName());
+		assertSame(XMLQName.of("urn:d", "b"), child.getQName());
+		assertSame(XMLQName.of("urn:x", "id"), child.getAttribute("p:id").getQName());
+		assertSame(XMLQName.of(null, "id"), child.getAttribute("id").getQName());
+	}
+
+	@Test
+	public void unboundPrefixesAreKeptWhole() {
+		XMLNode root = new XMLNode("<a><q:b q:id=\"1\"/></a>");
+		XMLNode child = root.getNode(0);
+		assertSame(XMLQName.of(null, "q:b"), child.getQName());
+		assertNull(child.getNamespace());
+		assertSame(XMLQName.of(null, "q:id"), child.getAttribute("q:id").getQName());
+	}
+
+	@Test
+	public void deepCopyOfParsedNodeIsResolvedInItsOwnScope() {
+		XMLNode root = new XMLNode("<a xmlns:p=\"urn:x\"><p:c p:id=\"1\"/></a>");
+		XMLNode source = root.getNode(0);
+		assertSame(XMLQName.of("urn:x", "c"), source.getQName());
+		XMLNode copy = source.deepCopy();
+		assertSame(XMLQName.of(null, "p:c"), copy.getQName());
+		assertSame(XMLQName.of(null, "p:id"), copy.getAttribute("p:id").getQName());
+	}
+
+	@Test
+	public void deepCopyOfBuiltNodeIsResolvedInItsOwnScope() {
+		XMLNode root = new XMLNode().setTag("a");
+		root.addAttribute("xmlns:p").setValue("urn:x");
+		XMLNode source = root.addNode("p:c");
+		source.addAttribute("p:id").setValue("1");
+		XMLNode copy = source.deepCopy();
+		assertSame(XMLQName.of(null, "p:c"), copy.getQName());
+		assertSame(XMLQName.of(null, "p:id"), copy.getAttribute("p:id").getQName());
+		assertSame(XMLQName.of("urn:x", "c"), source.getQName());
+	}
+
+	@Test
+	public void copyInsertedUnderOtherScopeIsResolvedThere() {
+		XMLNode source = new XMLNode("<a xmlns:p=\"urn:x\"><p:c/></a>").getNode(0);
+		assertSame(XMLQName.of("urn:x", "c"), source.getQName());
+		XMLNode target = new XMLNode("<t xmlns:p=\"urn:y\"/>");
+		XMLNode copy = target.insertNode(0, source);
+		assertSame(XMLQName.of("urn:y", "c"), copy.getQName());
+	}
+
+	@Test
+	public void changedDeclarationResolvesDescendantsAgain() {
+		XMLNode root = new XMLNode("<a xmlns:p=\"urn:x\"><p:c/></a>");
+		XMLNode child = root.getNode(0);
+		assertSame(XMLQName.of("urn:x", "c"), child.getQName());
+		root.getAttribute("xmlns:p").setValue("urn:y");
+		assertSame(XMLQName.of("urn:y", "c"), child.getQName());
+	}
+
+	@Test
+	public void namesAreInterned() {
+		assertSame(XMLQName.of("urn:x", "a"), XMLQName.of(new String("urn:x"), new String("a")));
+		assertEquals("{urn:x}a", XMLQName.of("urn:x", "a").toString());
+		assertEquals("a", XMLQName.of(null, "a").toString());
+	}
+
+	@Test
+	public void namesInternedConcurrentlyAreShared() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<XMLQName[]>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++)
+				results.add(executor.submit(() -> {
+					XMLQName[] names = new XMLQName[1000];
+					for (int j = 0; j < names.length; j++)
+						names[j] = XMLQName.of(j % 2 == 0 ? null : "urn:concurrent", "n" + j);
+					return names;
+				}));
+			XMLQName[] expected = results.get(0).get();
+			for (Future<XMLQName[]> result : results) {
+				XMLQName[] names = result.get();
+				for (int j = 0; j < names.length; j++)
+					assertSame(expected[j], names[j]);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void namesWithoutDeclarationsAreResolvedLazily() {
+		XMLNode root = new XMLNode("<a><xml:b x=\"1\"/></a>");
+		assertSame(XMLQName.of(null, "a"), root.getQName());
+		assertSame(XMLQName.of(XMLQName.XML_NAMESPACE, "b"), root.getNode(0).getQName());
+		assertSame(XMLQName.of(null, "x"), root.getNode(0).getAttribute("x").getQName());
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class XMLSchemaTest {
+
+	private static final XMLSchema SCHEMA = XMLSchema.builder("library")
+			.element("library", element -> element.attribute("name", false).child("book", 0, XMLSchema.UNBOUNDED))
+			.element("book", element -> element.attribute("id", true, "\\d+").attribute("lang", false, "[a-z]{2}")
+					.child("title").child("author", 1, 3).child("note", 0, 1))
+			.element("title", element -> element.text("\\S.*"))
+			.element("author", element -> element.unordered().child("first", 0, 1).child("last"))
+			.build();
+
+	private static final String AUTHOR = "<author><last>L</last></author>";
+
+	@Test
+	public void validDocumentsAreAccepted() {
+		String[] documents = { "<library/>",
+				"<library name=\"n\"><book id=\"1\" lang=\"en\"><title>T</title><author><last>L</last><first>F</first>"
+						+ "</author><note/></book><book id=\"2\"><title>U</title>" + AUTHOR + AUTHOR
+						+ "</book></library>",
+				"<library xmlns:x=\"urn:x\"><book id=\"1\" xmlns=\"urn:y\"><title>T</title>" + AUTHOR
+						+ "</book></library>",
+				"<library><book id=\"1\"><title>T</title>" + AUTHOR + "<note><any>x</any></note></book></library>" };
+		for (String document : documents) {
+			SCHEMA.parse(document);
+			SCHEMA.validate(new XMLNode(document));
+			push(new XMLPushParser().setSchema(SCHEMA), document);
+		}
+	}
+
+	@Test
+	public void rootElementIsChecked() {
+		assertRejected("<shelf/>", "Expected root element <library> but found <shelf>");
+	}
+
+	@Test
+	public void attributesAreChecked() {
+		String book = book("<title>T</title>" + AUTHOR);
+		assertRejected(book.replace(" id=\"1\"", ""), "Missing required attribute \"id\"");
+		assertRejected(book.replace("\"1\"", "\"x1\""), "Invalid value \"x1\" of attribute \"id\"");
+		assertRejected(book.replace("id=", "color=\"red\" id="), "Undeclared attribute \"color\"");
+	}
+
+	@Test
+	public void textPatternsAreChecked() {
+		assertRejected(book("<title></title>" + AUTHOR), "Invalid text \"\"");
+	}
+
+	@Test
+	public void requiredAndMaximumCountsAreChecked() {
+		assertRejected(book(AUTHOR), "Missing element <title>, expected at least 1");
+		assertRejected(book("<title>T</title>"), "Missing element <author>, expected at least 1");
+		assertRejected(book("<title>T</title>" + AUTHOR + AUTHOR + AUTHOR + AUTHOR),
+				"Too many <author> elements, expected at most 3");
+		assertRejected(book("<title>T</title>" + AUTHOR + "<note/><note/>"), "Too many <note> elements");
+		assertRejected(book("<title>T</title>" + AUTHOR + "<chapter/>"), "Unexpected element <chapter>");
+	}
+
+	@Test
+	public void orderedAndUnorderedChildrenAreChecked() {
+		assertRejected(book("<title>T</title>" + AUTHOR + "<note/>" + AUTHOR),
+				"Unexpected element <author> after <note>");
+		SCHEMA.parse(book("<title>T</title><author><first>F</first><last>L</last></author>"));
+		assertRejected(book("<title>T</title><author><first>F</first></author>"), "Missing element <last>");
+		assertRejected(book("<title>T</title><author><last>L</last><last>M</last></author>"),
+				"Too many <last> elements");
+	}
+
+	@Test
+	public void trailingRootsAndTruncatedInputAreRejected() {
+		assertStreamRejected("<library/><library/>", "Unexpected element <library> after the root element");
+		assertStreamRejected("<library><book id=\"1\"><title>T</title>", "Document ends before the element is closed");
+		assertStreamRejected("", "Missing root element <library>");
+	}
+
+	@Test
+	public void listenerSeesNothingAfterTheFirstInvalidElement() {
+		List<String> seen = new ArrayList<>();
+		XMLPushParser parser = new XMLPushParser().setSchema(SCHEMA).onElement(node -> seen.add(node.getTag()));
+		String document = "<library><book id=\"1\"><title>T</title>" + AUTHOR + "</book><book id=\"2\"><title>U</title>"
+				+ "<chapter/>" + AUTHOR + "</book></library>";
+		assertThrows(IllegalArgumentException.class, () -> push(parser, document));
+		assertEquals("[title, last, author, book, title]", seen.toString());
+		seen.clear();
+		push(parser, book("<title>T</title>" + AUTHOR));
+		assertEquals("[title, last, author, book, library]", seen.toString());
+	}
+
+	@Test
+	public void deepTreesAreValidatedWithoutRecursion() {
+		XMLSchema schema = XMLSchema.builder("a").element("a", element -> element.child("a", 0, 1)).build();
+		XMLNode root = new XMLNode().setTag("a");
+		XMLNode node = root;
+		for (int i = 0; i < 100000; i++)
+			node = node.addNode("a");
+		schema.validate(root);
+		node.addNode("b");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> schema.validate(root));
+		assertTrue(exception.getMessage().endsWith("Unexpected element <b>"));
+	}
+
+	private static String book(String content) {
+		return "<library><book id=\"1\">" + content + "</book></library>";
+	}
+
+	/**
+	 * Asserts that parsing, pushing and validating the parsed tree reject the document with the same message.
+	 */
+	private static void assertRejected(String document, String message) {
+		String expected = assertStreamRejected(document, message);
+		XMLNode node = new XMLNode(document);
+		assertEquals(expected, assertThrows(IllegalArgumentException.class, () -> SCHEMA.validate(node)).getMessage());
+	}
+
+	/**
+	 * Asserts that parsing and pushing reject the document with the same message, for documents that cannot be
+	 * represented by a single tree.
+	 */
+	private static String assertStreamRejected(String document, String message) {
+		String parsed = assertThrows(IllegalArgumentException.class, () -> SCHEMA.parse(document)).getMessage();
+		assertTrue(parsed, parsed.contains(message));
+		XMLPushParser parser = new XMLPushParser().setSchema(SCHEMA);
+		assertEquals(parsed, assertThrows(IllegalArgumentException.class, () -> push(parser, document)).getMessage());
+		return parsed;
+	}
+
+	private static void push(XMLPushParser parser, String document) {
+		byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i += 3)
+			parser.feed(bytes, i, Math.min(3, bytes.length - i));
+		parser.finish();
+	}
+
+}
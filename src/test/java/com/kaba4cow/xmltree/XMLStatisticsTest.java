@@ -0,0 +1,49 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class XMLStatisticsTest {
+
+	@Test
+	public void structureIsCounted() {
+		XMLStatistics statistics = new XMLNode("<a x=\"1\"><b>text</b><c><b y=\"2\" z=\"3\"/></c></a>").statistics();
+		assertEquals(4, statistics.getNodeCount());
+		assertEquals(3, statistics.getAttributeCount());
+		assertEquals(3, statistics.getMaxDepth());
+		assertEquals(4L, statistics.getTextCharacters());
+		assertEquals(3, statistics.getDistinctTagCount());
+	}
+
+	@Test
+	public void typedValuesAreMeasuredWithoutFormatting() {
+		XMLNode node = new XMLNode().setTag("a");
+		node.addAttribute("e").setEnum(TimeUnit.SECONDS);
+		node.addNode("b").setLong(-1234567L);
+		node.addNode("c").setDouble(0.5);
+		XMLStatistics statistics = node.statistics();
+		assertEquals("-1234567".length() + "0.5".length(), statistics.getTextCharacters());
+		assertNull(node.getNode(0).text());
+		assertNull(node.getAttribute("e").value());
+		assertNotNull(node.getNode(1).typed());
+		assertEquals(statistics.getEstimatedSize(), node.statistics().getEstimatedSize());
+	}
+
+	@Test
+	public void boxedValuesAreCounted() {
+		XMLNode small = new XMLNode().setTag("a").setInt(1);
+		XMLNode large = new XMLNode().setTag("a").setInt(100000);
+		XMLNode text = new XMLNode().setTag("a").setText("100000");
+		assertEquals(small.statistics().getEstimatedSize() + 16L, large.statistics().getEstimatedSize());
+		long formatted = large.statistics().getEstimatedSize() + text.statistics().getEstimatedSize()
+				- small.statistics().getEstimatedSize();
+		large.getText();
+		assertEquals(formatted, large.statistics().getEstimatedSize());
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.kaba4cow.xmltree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class XMLValueTest {
+
+	private static final String EXPECTED = "<a i=\"-42\" l=\"1099511627776\" d=\"2.5\" b=\"true\" e=\"SECONDS\">\n"
+			+ "\t<x>-9223372036854775808</x>\n\t<y>1.0E-5</y>\n</a>";
+
+	@Test
+	public void typedValuesAreWrittenWithoutFormattingStrings() {
+		XMLNode root = typed();
+		assertEquals(EXPECTED, root.toXMLString());
+		assertNotNull(root.getAttribute("i").typed());
+		assertNotNull(root.getNode(0).typed());
+		assertNotNull(root.getNode(1).typed());
+	}
+
+	@Test
+	public void typedValuesAreWrittenToChannels() throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		XMLNode root = typed();
+		root.write(Channels.newChannel(stream));
+		assertEquals(EXPECTED, new String(stream.toByteArray(), StandardCharsets.UTF_8));
+		assertNotNull(root.getAttribute("d").typed());
+	}
+
+	@Test
+	public void typedValuesAreFormattedOnRequest() {
+		XMLNode root = typed();
+		assertEquals("2.5", root.getAttribute("d").getValue());
+		assertNull(root.getAttribute("d").typed());
+		assertEquals("1.0E-5", root.getNode(1).getText());
+		assertEquals(EXPECTED, root.toXMLString());
+	}
+
+	@Test
+	public void numbersAreParsedIgnoringWhitespace() {
+		assertEquals(-42, XMLValue.parseInt(" -42\n"));
+		assertEquals(Long.MIN_VALUE, XMLValue.parseLong("-9223372036854775808"));
+		assertEquals(0.25, XMLValue.parseDouble("\t0.25 "), 0.0);
+		assertEquals(true, XMLValue.parseBoolean(" true "));
+	}
+
+	private static XMLNode typed() {
+		XMLNode root = new XMLNode().setTag("a");
+		root.addAttribute("i").setInt(-42);
+		root.addAttribute("l").setLong(1L << 40);
+		root.addAttribute("d").setDouble(2.5);
+		root.addAttribute("b").setBoolean(true);
+		root.addAttribute("e").setEnum(java.util.concurrent.TimeUnit.SECONDS);
+		root.addNode("x").setLong(Long.MIN_VALUE);
+		root.addNode("y").setDouble(0.00001);
+		return root;
+	}
+
+}